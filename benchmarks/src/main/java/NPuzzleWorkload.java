@@ -0,0 +1,84 @@
+import java.util.Random;
+
+/**
+ * NPuzzleWorkload class implements bench.Workload with the solver classes.
+ * Searches run with printing turned off (see Search.setVerbose()).
+ * @author VedFI
+ */
+public class NPuzzleWorkload implements bench.Workload {
+    private Node[] roots;
+    private State goal;
+
+    @Override
+    public void prepare(int grid_size, int instances, int walk_length, long seed){
+        Random random = new Random(seed);
+        goal = new State(grid_size);
+        goal.generateGoalState();
+        roots = new Node[instances];
+        for(int k=0; k<instances; k++){
+            State s = new State(grid_size);
+            s.generateRandomWalk(walk_length, random);
+            roots[k] = new Node(s, null, "START");
+        }
+    }
+
+    @Override
+    public int size(){
+        return roots.length;
+    }
+
+    @Override
+    public Object successors(int i){
+        return roots[i].move();
+    }
+
+    @Override
+    public int h1(int i){
+        roots[i].h1();
+        return roots[i].getH_cost();
+    }
+
+    @Override
+    public int h2(int i){
+        roots[i].h2();
+        return roots[i].getH_cost();
+    }
+
+    @Override
+    public int h3(int i){
+        roots[i].h3();
+        return roots[i].getH_cost();
+    }
+
+    @Override
+    public int h4(int i){
+        roots[i].h4();
+        return roots[i].getH_cost();
+    }
+
+    @Override
+    public boolean isGoal(int i){
+        return roots[i].getState().isGoal(goal);
+    }
+
+    private Search search(int i){
+        Search s = new Search(roots[i], goal);
+        s.setVerbose(false);
+        return s;
+    }
+
+    @Override
+    public Object aStar(int i){
+        return search(i).AStar();
+    }
+
+    @Override
+    public Object bfs(int i){
+        return search(i).BFS();
+    }
+
+    @Override
+    public Object ids(int i){
+        return search(i).IDS();
+    }
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per node operations: successor generation, h1 .. h4 and goal test,
+ * cycling through 256 seeded random walk instances.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeBenchmark {
+    @Param({"3", "4"})
+    public int grid_size;
+
+    private Workload workload;
+    private int i;
+
+    @Setup
+    public void setup(){
+        workload = Workload.create();
+        workload.prepare(grid_size, 256, 60, 42);
+    }
+
+    private int next(){
+        i = (i + 1) & 255;
+        return i;
+    }
+
+    @Benchmark
+    public Object move(){
+        return workload.successors(next());
+    }
+
+    @Benchmark
+    public int h1(){
+        return workload.h1(next());
+    }
+
+    @Benchmark
+    public int h2(){
+        return workload.h2(next());
+    }
+
+    @Benchmark
+    public int h3(){
+        return workload.h3(next());
+    }
+
+    @Benchmark
+    public int h4(){
+        return workload.h4(next());
+    }
+
+    @Benchmark
+    public boolean isGoal(){
+        return workload.isGoal(next());
+    }
+}
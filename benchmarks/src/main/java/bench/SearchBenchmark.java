@@ -0,0 +1,84 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete searches over a fixed seeded corpus, one operation solves every instance.
+ * A* gets longer walks than the uninformed searches, which blow up beyond ~12 moves.
+ * Corpus is "grid_size:walk_length".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int INSTANCES = 8;
+
+    private static Workload corpus(String spec){
+        String[] parts = spec.split(":");
+        Workload w = Workload.create();
+        w.prepare(Integer.parseInt(parts[0]), INSTANCES, Integer.parseInt(parts[1]), 42);
+        return w;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Informed {
+        @Param({"3:30", "4:30"})
+        public String corpus;
+
+        Workload workload;
+
+        @Setup
+        public void setup(){
+            workload = corpus(corpus);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Uninformed {
+        @Param({"3:10", "4:10"})
+        public String corpus;
+
+        Workload workload;
+
+        @Setup
+        public void setup(){
+            workload = corpus(corpus);
+        }
+    }
+
+    @Benchmark
+    public void aStar(Informed c, Blackhole bh){
+        for(int i=0; i<INSTANCES; i++){
+            bh.consume(c.workload.aStar(i));
+        }
+    }
+
+    @Benchmark
+    public void bfs(Uninformed c, Blackhole bh){
+        for(int i=0; i<INSTANCES; i++){
+            bh.consume(c.workload.bfs(i));
+        }
+    }
+
+    @Benchmark
+    public void ids(Uninformed c, Blackhole bh){
+        for(int i=0; i<INSTANCES; i++){
+            bh.consume(c.workload.ids(i));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package bench;
+
+/**
+ * Workload interface is the bridge from benchmarks to the solver.
+ * Solver classes live in the default package, which a named package cannot import,
+ * and JMH refuses benchmarks in the default package. NPuzzleWorkload (default package)
+ * implements this interface and is loaded by name.
+ * Every method works on instance i of a corpus built by prepare().
+ */
+public interface Workload {
+    /**
+     * Builds a corpus of solvable puzzles by seeded random walks from the goal state.
+     * @param walk_length: number of moves of each walk, no move undoes the previous one.
+     */
+    void prepare(int grid_size, int instances, int walk_length, long seed);
+
+    int size();
+
+    /**
+     * @return children list of Node.move().
+     */
+    Object successors(int i);
+
+    /**
+     * @return h_cost after calling Node.h1() .. Node.h4().
+     */
+    int h1(int i);
+
+    int h2(int i);
+
+    int h3(int i);
+
+    int h4(int i);
+
+    boolean isGoal(int i);
+
+    /**
+     * @return goal node found by Search.AStar(), Search.BFS(), Search.IDS().
+     */
+    Object aStar(int i);
+
+    Object bfs(int i);
+
+    Object ids(int i);
+
+    static Workload create(){
+        try{
+            return (Workload)Class.forName("NPuzzleWorkload").getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e){
+            throw new IllegalStateException("NPuzzleWorkload not on class path", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * AdditivePatternDatabase class sums pattern databases of disjoint tile sets.
+ * Sum is admissible because each table only counts moves of its own tiles.
+ * Static partitions are given for the standard goal (agent on the top left cell).
+ * The cell of tile buffer is per thread and reused, estimate() allocates nothing.
+ * @author VedFI
+ */
+public class AdditivePatternDatabase {
+    /**
+     * 15-puzzle, 6-6-3 partition.
+     */
+    public static final int[][] PARTITION_663 = {
+            {1,4,5,8,9,12}, {2,3,6,7,10,11}, {13,14,15}};
+    /**
+     * 15-puzzle, 7-8 partition.
+     */
+    public static final int[][] PARTITION_78 = {
+            {1,2,3,4,5,6,7}, {8,9,10,11,12,13,14,15}};
+    /**
+     * 24-puzzle, 6-6-6-6 partition.
+     */
+    public static final int[][] PARTITION_6666 = {
+            {1,2,5,6,7,12}, {3,4,8,9,13,14}, {10,11,15,16,20,21}, {17,18,19,22,23,24}};
+
+    private PatternDatabase[] databases;
+    private int cells;
+    private final ThreadLocal<int[]> scratch;   //cell of tile
+
+    public AdditivePatternDatabase(PatternDatabase... databases){
+        this.databases = databases;
+        int n = databases[0].getGrid_size();
+        cells = n*n;
+        int size = cells;
+        scratch = ThreadLocal.withInitial(() -> new int[size]);
+    }
+
+    /**
+     * Loads each pattern of partition from directory,
+     * generating and saving the ones that are missing or built for another goal.
+     */
+    public static AdditivePatternDatabase open(Path dir, int[][] partition, State goal) throws IOException {
+        Files.createDirectories(dir);
+        PatternDatabase[] dbs = new PatternDatabase[partition.length];
+        for(int i=0; i<partition.length; i++){
+            Path file = dir.resolve(fileName(goal.getGrid_size(), partition[i]));
+            if(Files.exists(file)){
+                dbs[i] = PatternDatabase.load(file);
+                if(dbs[i].matches(goal)){
+                    continue;
+                }
+            }
+            PatternDatabase.generate(goal, partition[i]).save(file);
+            dbs[i] = PatternDatabase.load(file);
+        }
+        return new AdditivePatternDatabase(dbs);
+    }
+
+    private static String fileName(int grid_size, int[] tiles){
+        StringBuilder name = new StringBuilder("pdb-" + grid_size + "x" + grid_size);
+        for(int t: tiles){
+            name.append('-').append(t);
+        }
+        return name.append(".bin").toString();
+    }
+
+    /**
+     * @return sum of pattern database values of state.
+     */
+    public int estimate(State s){
+        int[] cell_of_tile = scratch.get();
+        for(int i=0; i<cells; i++){
+            cell_of_tile[s.getTile(i)] = i;
+        }
+        return sum(cell_of_tile);
+    }
+
+    /**
+     * estimate() of a packed state (grid_size <= 4).
+     */
+    public int estimate(long key){
+        int[] cell_of_tile = scratch.get();
+        for(int i=0; i<cells; i++){
+            cell_of_tile[State.tileOf(key, i)] = i;
+        }
+        return sum(cell_of_tile);
+    }
+
+    private int sum(int[] cell_of_tile){
+        int h = 0;
+        for(PatternDatabase pdb: databases){
+            h += pdb.lookup(cell_of_tile);
+        }
+        return h;
+    }
+
+    /**
+     * Generates tables of a partition into a directory.
+     * Usage: AdditivePatternDatabase (663|78|6666) directory
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2){
+            System.out.println("Usage: AdditivePatternDatabase (663|78|6666) directory");
+            return;
+        }
+        int[][] partition;
+        int n = 4;
+        switch (args[0]){
+            case "663":  partition = PARTITION_663; break;
+            case "78":   partition = PARTITION_78; break;
+            case "6666": partition = PARTITION_6666; n = 5; break;
+            default:
+                System.out.println("Unknown partition: " + args[0]);
+                return;
+        }
+        State goal = new State(n);
+        goal.generateGoalState();
+        long t1 = System.currentTimeMillis();
+        open(Paths.get(args[1]), partition, goal);
+        long t2 = System.currentTimeMillis();
+        System.out.println("Pattern databases ready in " + (t2-t1) + " ms");
+    }
+}
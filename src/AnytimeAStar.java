@@ -0,0 +1,211 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * AnytimeAStar class provides weighted A* and ARA* (anytime repairing A*) for boards of any size.
+ * Nodes are ordered by g + w*h in a bucket queue, deeper first among equal values
+ * (same order as Node.compareTo() with weighted estimates). w*h is rounded down,
+ * which keeps solution cost within w times the optimum for admissible heuristics.
+ * Each state keeps its best node in a map, a state is expanded at most once per pass.
+ * ARA* starts with a large w and lowers it after every pass, reusing the work done:
+ * states improved after being expanded are kept aside (INCONS) and queued again for the next pass.
+ * Every better solution is given to SearchListener.improved() with its bound at the end of a pass.
+ * Bounds only hold for admissible heuristics, with others (and for a solution found before
+ * the first pass ended) bound is reported as NaN.
+ * Heuristic is the one selected on the Search object (see Search.setHeuristic()).
+ * @author VedFI
+ */
+public class AnytimeAStar {
+    private Search search;
+    private Node root;
+    private State goal;
+    private SearchListener listener;
+    private long deadline = Long.MAX_VALUE;   //System.nanoTime() value
+
+    private HashMap<State,Node> best = new HashMap<>();
+    private HashSet<State> closed = new HashSet<>();
+    private ArrayList<Node> incons = new ArrayList<>();
+    private BucketQueue<Node> open = new BucketQueue<>();
+    private double w;
+    private Node incumbent;
+    private double bound = Double.POSITIVE_INFINITY;
+    private long nodes_expanded;
+    private boolean timed_out;
+
+    /**
+     * @param search: supplies the heuristic.
+     * @param listener: receives improved solutions, may be null.
+     */
+    public AnytimeAStar(Search search, Node root, State goal, SearchListener listener){
+        this.search = search;
+        this.root = root;
+        this.goal = goal;
+        this.listener = listener;
+    }
+
+    /**
+     * Search stops at this time and returns the best solution found so far.
+     * @param millis: time limit from now, 0 for none.
+     */
+    public void setTimeLimit(long millis){
+        deadline = (millis > 0) ? System.nanoTime() + millis*1000000 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Weighted A*, one pass with weight w.
+     * @param w: weight of h, at least 1.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node weighted(double w){
+        return search(w, 0);
+    }
+
+    /**
+     * ARA*. Runs passes with w0, w0-step, ... down to 1 until time limit.
+     * @return best Node found. Else returns null.
+     */
+    public Node anytime(double w0, double step){
+        if(step <= 0){
+            throw new IllegalArgumentException("step: " + step);
+        }
+        return search(w0, step);
+    }
+
+    private Node search(double w0, double step){
+        if(w0 < 1){
+            throw new IllegalArgumentException("w: " + w0);
+        }
+        w = w0;
+        if(root.getState().isGoal(goal)){
+            bound = 1;
+            return root;
+        }
+        search.evaluate(root);
+        best.put(root.getState(), root);
+        open.push(root, key(root), 0);
+        int published = Integer.MAX_VALUE;
+        while(true){
+            improvePath();
+            if(timed_out){
+                //bound of the last full pass still holds for a better incumbent
+                if(incumbent != null && incumbent.getDepth() < published && listener != null){
+                    listener.improved(incumbent, getBound());
+                }
+                break;
+            }
+            ArrayList<Node> live = drain();
+            int lower = Integer.MAX_VALUE;
+            for(Node n: live){
+                lower = Math.min(lower, n.getH_cost());
+            }
+            if(incumbent != null){
+                double b = (lower == Integer.MAX_VALUE) ? 1 : (double)incumbent.getDepth()/lower;
+                bound = Math.max(1, Math.min(w, b));
+                if(incumbent.getDepth() < published && listener != null){
+                    listener.improved(incumbent, getBound());
+                    published = incumbent.getDepth();
+                }
+            }
+            if(step == 0 || w <= 1 || bound <= 1){
+                break;
+            }
+            w = Math.max(1, w - step);
+            closed.clear();
+            for(Node n: live){
+                open.push(n, key(n), n.getDepth());
+            }
+        }
+        open.clear();
+        return incumbent;
+    }
+
+    /**
+     * Expands nodes while one may lead to a solution better than incumbent under current w.
+     */
+    private void improvePath(){
+        int goal_g = (incumbent == null) ? Integer.MAX_VALUE : incumbent.getDepth();
+        while(!open.isEmpty() && open.minF() < goal_g){
+            Node n = open.pop();
+            if(best.get(n.getState()) != n){
+                continue;                   //outdated copy
+            }
+            if((nodes_expanded & 255) == 0 && System.nanoTime() > deadline){
+                timed_out = true;
+                return;
+            }
+            nodes_expanded++;
+            closed.add(n.getState());
+            for(Node c: n.move()){
+                Node old = best.get(c.getState());
+                if(old != null && old.getDepth() <= c.getDepth()){
+                    continue;
+                }
+                search.evaluate(c);
+                best.put(c.getState(), c);
+                if(c.getState().isGoal(goal)){
+                    incumbent = c;
+                    goal_g = c.getDepth();
+                }
+                if(closed.contains(c.getState())){
+                    incons.add(c);
+                }
+                else{
+                    open.push(c, key(c), c.getDepth());
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties open list and INCONS.
+     * @return their nodes that are still the best of their state.
+     */
+    private ArrayList<Node> drain(){
+        ArrayList<Node> live = new ArrayList<>(open.size() + incons.size());
+        while(!open.isEmpty()){
+            Node n = open.pop();
+            if(best.get(n.getState()) == n){
+                live.add(n);
+            }
+        }
+        for(Node n: incons){
+            if(best.get(n.getState()) == n){
+                live.add(n);
+            }
+        }
+        incons.clear();
+        return live;
+    }
+
+    /**
+     * @return g + floor(w*h).
+     */
+    private int key(Node n){
+        int h = n.getH_cost() - n.getDepth();
+        return n.getDepth() + (int)(w*h);
+    }
+
+    /**
+     * Solution cost is at most bound times the optimal cost.
+     * @return bound of last returned solution, NaN if heuristic is not admissible,
+     * there is no solution or time ran out in the first pass.
+     */
+    public double getBound(){
+        if(bound == Double.POSITIVE_INFINITY || !search.admissible()){
+            return Double.NaN;
+        }
+        return bound;
+    }
+
+    public long getNodes_expanded(){
+        return nodes_expanded;
+    }
+
+    /**
+     * @return true if search stopped at the time limit.
+     */
+    public boolean isTimed_out(){
+        return timed_out;
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * BatchHeuristic interface scores a block of packed states (grid_size <= 4) at once.
+ * Values are the same as Node.h1() and Node.h2() (estimate only, without depth).
+ * create() gives the Vector API implementation when the JVM runs with
+ * --add-modules jdk.incubator.vector, the scalar one otherwise.
+ * @author VedFI
+ */
+public interface BatchHeuristic {
+    /**
+     * Manhattan distance of every tile, agent included. Writes out[0..count).
+     */
+    void h1(long[] states, int count, int[] out);
+
+    /**
+     * Number of misplaced tiles, agent included. Writes out[0..count).
+     */
+    void h2(long[] states, int count, int[] out);
+
+    /**
+     * @return true if lanes of the Vector API are used.
+     */
+    boolean isVectorized();
+
+    static BatchHeuristic create(int grid_size){
+        if(grid_size > 4){
+            throw new IllegalArgumentException("batch heuristic supports boards up to 4x4");
+        }
+        try{
+            return (BatchHeuristic)Class.forName("VectorBatchHeuristic")
+                    .getDeclaredConstructor(int.class).newInstance(grid_size);
+        }
+        catch (ReflectiveOperationException | LinkageError e){
+            //jdk.incubator.vector is not in the boot layer, fall through
+        }
+        return new ScalarBatchHeuristic(grid_size);
+    }
+}
@@ -0,0 +1,351 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * BatchSolver class streams puzzles through a pool of worker threads.
+ * Input has one puzzle per line: tile values row by row separated by spaces or commas,
+ * agent is 0 and the board size is the square root of the count. Goal is generateGoalState().
+ * The calling thread reads input into a bounded queue, so input is never loaded as a whole.
+ * In ordered mode reading also waits while queue_size results are held back behind
+ * an unfinished one, so held results are bounded too.
+ * Every worker owns one Search object and reuses its tables for all of its puzzles,
+ * goal perimeter tables (see setPerimeter()) are built once and shared by all workers.
+ * Output has one line per puzzle: index, depth, expanded nodes, time in ms and moves
+ * ("unsolvable" instead of the rest if goal can not be reached, "error" and a message
+ * if the line can not be parsed or the solver failed on it, stack overflow and out of memory included),
+ * written as soon as a result is ready, either in input order or in completion order.
+ * The first failed write stops reading and workers, run() throws it.
+ * @author VedFI
+ */
+public class BatchSolver {
+    private static final Task END = new Task(-1, null);
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queue_size = 1024;
+    private boolean ordered = true;
+    private boolean virtual_threads;
+    private String engine = "idastar";
+    private int perimeter_depth;
+
+    private static final class Task {
+        final long index;
+        final String line;
+
+        Task(long index, String line){
+            this.index = index;
+            this.line = line;
+        }
+    }
+
+    public void setThreads(int threads){
+        this.threads = threads;
+    }
+
+    /**
+     * @param queue_size: number of input lines read ahead of the workers,
+     * also the most results held back in ordered mode.
+     */
+    public void setQueueSize(int queue_size){
+        this.queue_size = queue_size;
+    }
+
+    /**
+     * @param ordered: true to write results in input order, false in completion order.
+     */
+    public void setOrdered(boolean ordered){
+        this.ordered = ordered;
+    }
+
+    /**
+     * Runs workers on virtual threads if the running JVM has them (Java 21+),
+     * platform threads otherwise.
+     */
+    public void setVirtualThreads(boolean virtual_threads){
+        this.virtual_threads = virtual_threads;
+    }
+
+    /**
+     * @param engine: "idastar" or "astar" (linear conflict with duplicate detection).
+     */
+    public void setEngine(String engine){
+        if(!engine.equals("idastar") && !engine.equals("astar")){
+            throw new IllegalArgumentException("unknown engine: " + engine);
+        }
+        this.engine = engine;
+    }
+
+    /**
+     * @param perimeter_depth: depth of the shared goal perimeter (boards up to 4x4), 0 for none.
+     * See Search.setPerimeter().
+     */
+    public void setPerimeter(int perimeter_depth){
+        this.perimeter_depth = perimeter_depth;
+    }
+
+    /**
+     * Solves every puzzle of input and writes results to output. Closes neither.
+     * @throws IOException of reading input or the first failed write of output.
+     */
+    public void run(Reader input, Writer output) throws IOException, InterruptedException {
+        BlockingQueue<Task> tasks = new ArrayBlockingQueue<>(queue_size);
+        Output out = new Output(output);
+        Thread[] pool = new Thread[threads];
+        for(int i=0; i<threads; i++){
+            pool[i] = newThread(new Worker(tasks, out), "batch-" + i);
+            pool[i].start();
+        }
+        BufferedReader in = new BufferedReader(input);
+        long index = 0;
+        String line;
+        try{
+            while(!out.failed() && (line = in.readLine()) != null){
+                if(!line.trim().isEmpty()){
+                    out.awaitWindow(index);
+                    tasks.put(new Task(index++, line));
+                }
+            }
+        }
+        finally{
+            for(int i=0; i<threads; i++){
+                tasks.put(END);
+            }
+            for(Thread t: pool){
+                t.join();
+            }
+        }
+        out.flush();
+    }
+
+    private Thread newThread(Runnable r, String name){
+        if(virtual_threads){
+            try{
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builder.getClass().getMethod("name", String.class).invoke(builder, name);
+                return (Thread)builder.getClass().getMethod("unstarted", Runnable.class).invoke(builder, r);
+            }
+            catch (ReflectiveOperationException e){
+                //no virtual threads in this JVM, fall through
+            }
+        }
+        return new Thread(r, name);
+    }
+
+    /**
+     * Parses one input line.
+     * @throws IllegalArgumentException if tile count is not a square or tiles are not 0..n*n-1.
+     */
+    static State parse(String line){
+        String[] parts = line.trim().split("[\\s,]+");
+        int n = (int)Math.round(Math.sqrt(parts.length));
+        if(n*n != parts.length || n < 2){
+            throw new IllegalArgumentException("tile count is not a square: " + parts.length);
+        }
+        State s = new State(n);
+        boolean[] seen = new boolean[n*n];
+        for(int i=0; i<parts.length; i++){
+            int t = Integer.parseInt(parts[i]);
+            if(t < 0 || t >= n*n || seen[t]){
+                throw new IllegalArgumentException("bad tile: " + t);
+            }
+            seen[t] = true;
+            s.setPuzzleCell(i/n, i%n, t);
+            if(t == 0){
+                s.setAgent(i/n, i%n);
+            }
+        }
+        return s;
+    }
+
+    private final class Worker implements Runnable {
+        private final BlockingQueue<Task> tasks;
+        private final Output out;
+        private Search search;
+        private State goal;
+
+        Worker(BlockingQueue<Task> tasks, Output out){
+            this.tasks = tasks;
+            this.out = out;
+        }
+
+        @Override
+        public void run(){
+            try{
+                Task t;
+                while((t = tasks.take()) != END){
+                    if(out.failed()){
+                        continue;           //output is lost, drain the queue so reading can end
+                    }
+                    String result;
+                    try{
+                        result = solve(t);
+                    }
+                    catch (RuntimeException | StackOverflowError | OutOfMemoryError e){
+                        //one bad puzzle must not stop the worker or leave a gap in ordered output
+                        result = t.index + ",error," + e;
+                        search = null;      //tables may be left half updated
+                    }
+                    out.put(t.index, result);
+                }
+            }
+            catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private String solve(Task t){
+            long t1 = System.nanoTime();
+            State start;
+            try{
+                start = parse(t.line);
+            }
+            catch (IllegalArgumentException e){
+                return t.index + ",error," + e.getMessage();
+            }
+            if(goal == null || goal.getGrid_size() != start.getGrid_size()){
+                goal = new State(start.getGrid_size());
+                goal.generateGoalState();
+            }
+            Node root = new Node(start, null, "START");
+            if(search == null){
+                search = new Search(root, goal);
+                search.setVerbose(false);
+                search.setPerimeter(perimeter_depth);
+                if(engine.equals("astar")){
+                    search.setDuplicateDetection(1 << 16, 0.5f);
+                    search.setHeuristic(Search.Heuristic.LINEAR_CONFLICT);
+                }
+            }
+            else{
+                search.reset(root, goal);
+            }
+            if(!search.isSolvable()){
+                return t.index + ",unsolvable";
+            }
+            Node n = engine.equals("astar") ? search.AStar() : search.IDAStar();
+            long ms = (System.nanoTime() - t1)/1000000;
+            if(n == null){
+                return t.index + ",unsolved," + search.getNodes_expanded() + "," + ms;
+            }
+            StringBuilder moves = new StringBuilder();
+            for(int m: n.getMoves()){
+                moves.append(State.ACTIONS[m].charAt(0));
+            }
+            return t.index + "," + n.getDepth() + "," + search.getNodes_expanded() + "," + ms + "," + moves;
+        }
+    }
+
+    /**
+     * Writes result lines, holding back early results in ordered mode.
+     * A failed write is kept (see failed()), later lines are dropped.
+     */
+    private final class Output {
+        private final Writer writer;
+        private final Map<Long,String> pending = new HashMap<>();
+        private long next;
+        private IOException failure;
+
+        Output(Writer writer){
+            this.writer = writer;
+        }
+
+        synchronized void put(long index, String line){
+            if(failure != null){
+                return;
+            }
+            try{
+                if(!ordered){
+                    writer.write(line);
+                    writer.write('\n');
+                    return;
+                }
+                pending.put(index, line);
+                String l;
+                long first = next;
+                while((l = pending.remove(next)) != null){
+                    writer.write(l);
+                    writer.write('\n');
+                    next++;
+                }
+                if(next != first){
+                    notifyAll();
+                }
+            }
+            catch (IOException e){
+                failure = e;
+                pending.clear();
+                notifyAll();                //reader may wait in awaitWindow()
+            }
+        }
+
+        synchronized boolean failed(){
+            return failure != null;
+        }
+
+        /**
+         * In ordered mode waits until index is less than queue_size past the first unwritten result,
+         * or a write failed.
+         */
+        synchronized void awaitWindow(long index) throws InterruptedException {
+            while(ordered && failure == null && index - next >= queue_size){
+                wait();
+            }
+        }
+
+        /**
+         * @throws IOException the first failed write, if any.
+         */
+        synchronized void flush() throws IOException {
+            if(failure != null){
+                throw failure;
+            }
+            writer.flush();
+        }
+    }
+
+    /**
+     * Usage: BatchSolver [-threads N] [-queue N] [-unordered] [-virtual] [-engine idastar|astar] [-perimeter D] input|- output|-
+     * Moves are written as letters L, R, U, D.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchSolver solver = new BatchSolver();
+        int i = 0;
+        for(; i < args.length - 2; i++){
+            switch (args[i]){
+                case "-threads": solver.setThreads(Integer.parseInt(args[++i])); break;
+                case "-queue": solver.setQueueSize(Integer.parseInt(args[++i])); break;
+                case "-unordered": solver.setOrdered(false); break;
+                case "-virtual": solver.setVirtualThreads(true); break;
+                case "-engine": solver.setEngine(args[++i]); break;
+                case "-perimeter": solver.setPerimeter(Integer.parseInt(args[++i])); break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        if(args.length - i != 2){
+            System.out.println("Usage: BatchSolver [-threads N] [-queue N] [-unordered] [-virtual]" +
+                    " [-engine idastar|astar] [-perimeter D] input|- output|-");
+            return;
+        }
+        long t1 = System.currentTimeMillis();
+        try(Reader in = args[i].equals("-") ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : Files.newBufferedReader(Paths.get(args[i]), StandardCharsets.UTF_8);
+            Writer out = args[i+1].equals("-") ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(Paths.get(args[i+1]), StandardCharsets.UTF_8)){
+            solver.run(in, out);            //closing out flushes buffered results on every path
+        }
+        System.err.println("Batch Time: " + (System.currentTimeMillis() - t1) + " ms");
+    }
+}
@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BeamSearch class is breadth first search that keeps only the best width nodes of every layer,
+ * for boards too large for complete searches (8x8 and up).
+ * Children of a layer are scored by linear conflict on a fork/join pool, states repeated in
+ * the new layer or kept in one of the last seen_layers layers are dropped, and the width children
+ * with the smallest h become the next layer (ties in generation order, so the result does not
+ * depend on the thread count).
+ * Memory is bounded by width: the states of the current layer and of the last seen_layers layers
+ * (see setSeenLayers(), duplicate elimination, without it a narrow beam walks in circles),
+ * plus a parent index and a move per kept node (5 bytes) for the path.
+ * Solution is not optimal; a wider beam gives shorter solutions in more time.
+ * @author VedFI
+ */
+public class BeamSearch {
+    private static final int SPLIT = 256;       //children scored per fork/join task
+
+    private Node root;
+    private State goal;
+    private int width;
+    private ForkJoinPool pool;
+    private LinearConflict lc;
+    private int max_depth = 10000;
+    private int seen_layers = 100;
+    private long nodes_expanded,nodes_generated;
+
+    /**
+     * @param width: nodes kept per layer.
+     * @param pool: pool that scores children, null for the common pool.
+     */
+    public BeamSearch(Node root, State goal, int width, ForkJoinPool pool){
+        if(width < 1){
+            throw new IllegalArgumentException("width: " + width);
+        }
+        this.root = root;
+        this.goal = goal;
+        this.width = width;
+        this.pool = (pool != null) ? pool : ForkJoinPool.commonPool();
+        lc = new LinearConflict(goal);
+    }
+
+    /**
+     * Search gives up after this many layers. Default is 10000.
+     */
+    public void setMaxDepth(int max_depth){
+        this.max_depth = max_depth;
+    }
+
+    /**
+     * Children are checked for duplicates against the kept states of this many previous layers,
+     * at most width*seen_layers states are remembered. Default is 100.
+     */
+    public void setSeenLayers(int seen_layers){
+        if(seen_layers < 1){
+            throw new IllegalArgumentException("seen layers: " + seen_layers);
+        }
+        this.seen_layers = seen_layers;
+    }
+
+    /**
+     * @return Node if a solution found. Else returns null (unsolvable, beam emptied or max depth reached).
+     */
+    public Node search(){
+        State start = root.getState();
+        if(!start.canReach(goal)){
+            return null;                    //see State.canReach()
+        }
+        if(start.isGoal(goal)){
+            return root;
+        }
+        State[] layer = {start};
+        int[] layer_h = {lc.estimate(start)};
+        int[] layer_move = {-1};
+        ArrayList<int[]> parents = new ArrayList<>();
+        ArrayList<byte[]> moves = new ArrayList<>();
+        final long capacity = (long)width*seen_layers;
+        LinkedHashMap<State,Boolean> seen = new LinkedHashMap<State,Boolean>(){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<State,Boolean> eldest){
+                return size() > capacity;           //oldest layers are forgotten first
+            }
+        };
+        seen.put(start, Boolean.TRUE);
+        for(int depth=0; depth<max_depth && layer.length > 0; depth++){
+            //children of every node, inverse of its own move skipped
+            int[] from = new int[layer.length*4];
+            int[] move = new int[layer.length*4];
+            int count = 0;
+            for(int i=0; i<layer.length; i++){
+                for(int m=0; m<4; m++){
+                    if(m != (layer_move[i]^1) && layer[i].canMove(m)){
+                        from[count] = i;
+                        move[count] = m;
+                        count++;
+                    }
+                }
+            }
+            nodes_expanded += layer.length;
+            nodes_generated += count;
+            State[] child = new State[count];
+            int[] h = new int[count];
+            pool.invoke(new Score(layer, layer_h, from, move, child, h, 0, count));
+            //keep first copy of each state not kept before, then the width smallest h
+            Integer[] order = new Integer[count];
+            HashSet<State> layer_seen = new HashSet<>(count*2);
+            int kept = 0;
+            for(int c=0; c<count; c++){
+                if(h[c] == 0){
+                    parents.add(new int[]{from[c]});
+                    moves.add(new byte[]{(byte)move[c]});
+                    return path(parents, moves);
+                }
+                if(!seen.containsKey(child[c]) && layer_seen.add(child[c])){
+                    order[kept++] = c;
+                }
+            }
+            Arrays.sort(order, 0, kept, (a, b) -> (h[a] != h[b]) ? Integer.compare(h[a], h[b]) : Integer.compare(a, b));
+            int next = Math.min(width, kept);
+            State[] next_layer = new State[next];
+            int[] next_h = new int[next], next_move = new int[next], parent = new int[next];
+            byte[] next_moves = new byte[next];
+            for(int k=0; k<next; k++){
+                int c = order[k];
+                next_layer[k] = child[c];
+                next_h[k] = h[c];
+                next_move[k] = move[c];
+                parent[k] = from[c];
+                next_moves[k] = (byte)move[c];
+                seen.put(child[c], Boolean.TRUE);
+            }
+            parents.add(parent);
+            moves.add(next_moves);
+            layer = next_layer;
+            layer_h = next_h;
+            layer_move = next_move;
+        }
+        return null;
+    }
+
+    /**
+     * Follows parent indexes from node 0 of the last layer back to root.
+     */
+    private Node path(ArrayList<int[]> parents, ArrayList<byte[]> moves){
+        int depth = parents.size();
+        int[] path = new int[depth];
+        int i = 0;
+        for(int d=depth-1; d>=0; d--){
+            path[d] = moves.get(d)[i];
+            i = parents.get(d)[i];
+        }
+        Node node = root;
+        for(int m: path){
+            node = node.slide(m);
+        }
+        return node;
+    }
+
+    /**
+     * Creates and scores children lo to hi (exclusive), splitting the range in halves.
+     */
+    private final class Score extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final State[] layer,child;
+        private final int[] layer_h,from,move,h;
+        private final int lo,hi;
+
+        Score(State[] layer, int[] layer_h, int[] from, int[] move, State[] child, int[] h, int lo, int hi){
+            this.layer = layer;
+            this.layer_h = layer_h;
+            this.from = from;
+            this.move = move;
+            this.child = child;
+            this.h = h;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute(){
+            if(hi - lo > SPLIT){
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Score(layer, layer_h, from, move, child, h, lo, mid),
+                        new Score(layer, layer_h, from, move, child, h, mid, hi));
+                return;
+            }
+            for(int c=lo; c<hi; c++){
+                State p = layer[from[c]];
+                State s = p.slide(move[c]);
+                child[c] = s;
+                h[c] = lc.update(p, s, move[c], layer_h[from[c]]);
+            }
+        }
+    }
+
+    public long getNodes_expanded(){
+        return nodes_expanded;
+    }
+
+    public long getNodes_generated(){
+        return nodes_generated;
+    }
+
+    /**
+     * Prints solution length and time of each beam width on one seeded instance.
+     * Usage: BeamSearch grid_size walk_length seed width...
+     */
+    public static void main(String[] args){
+        if(args.length < 4){
+            System.out.println("Usage: BeamSearch grid_size walk_length seed width...");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        State goal = new State(n);
+        goal.generateGoalState();
+        State start = new State(n);
+        start.generateRandomWalk(Integer.parseInt(args[1]), new Random(Long.parseLong(args[2])));
+        System.out.println("width,length,ms,expanded");
+        for(int i=3; i<args.length; i++){
+            int w = Integer.parseInt(args[i]);
+            BeamSearch beam = new BeamSearch(new Node(start, null, "START"), goal, w, null);
+            long t1 = System.nanoTime();
+            Node n1 = beam.search();
+            long ms = (System.nanoTime() - t1)/1000000;
+            System.out.println(w + "," + ((n1 == null) ? "-" : n1.getDepth()) + "," + ms + "," + beam.getNodes_expanded());
+        }
+    }
+}
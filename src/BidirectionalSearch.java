@@ -0,0 +1,199 @@
+import java.util.Arrays;
+
+/**
+ * BidirectionalSearch class searches forward from root and backward from goal at the same time.
+ * Moves are reversible, so backward search uses the same moves starting from goal.
+ * Both directions record every reached state with its depth and the move that reached it.
+ * When the directions meet, path is stitched from the two move chains.
+ * Provides front to front breadth first search and MM (meet in the middle) for boards up to 4x4.
+ * @author VedFI
+ */
+public class BidirectionalSearch {
+    private Node root;
+    private State goal;
+    private int grid_size;
+    private long nodes_expanded;
+    private LongIntMap forward,backward;        //key -> g << 3 | (move+1)
+    private long meet;
+
+    public BidirectionalSearch(Node root, State goal){
+        if(!root.getState().isPacked()){
+            throw new IllegalArgumentException("bidirectional search supports boards up to 4x4");
+        }
+        this.root = root;
+        this.goal = goal;
+        grid_size = goal.getGrid_size();
+    }
+
+    /**
+     * Breadth first search from both ends, one full layer at a time,
+     * always growing the smaller frontier. Best meeting state of the first layer
+     * that touches the other side gives a shortest path.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node BFS(){
+        forward = new LongIntMap(1 << 12);
+        backward = new LongIntMap(1 << 12);
+        long start = root.getState().getPacked(), end = goal.getPacked();
+        if(start == end){
+            return root;
+        }
+        forward.put(start, 0);
+        backward.put(end, 0);
+        long[] front_f = {start}, front_b = {end};
+        int size_f = 1, size_b = 1;
+        while(size_f > 0 && size_b > 0){
+            boolean fwd = size_f <= size_b;
+            long[] layer = fwd ? front_f : front_b;
+            int size = fwd ? size_f : size_b;
+            LongIntMap own = fwd ? forward : backward, other = fwd ? backward : forward;
+            long[] next = new long[Math.max(16, size*3)];
+            int next_size = 0;
+            int best = Integer.MAX_VALUE;
+            for(int i=0; i<size; i++){
+                State s = State.unpack(grid_size, layer[i]);
+                int v = own.get(layer[i], 0);
+                int g = v >>> 3, prev = (v & 7) - 1;
+                nodes_expanded++;
+                for(int m=0; m<4; m++){
+                    if(m == (prev^1) || !s.canMove(m)){
+                        continue;
+                    }
+                    long c = s.slide(m).getPacked();
+                    if(own.containsKey(c)){
+                        continue;
+                    }
+                    own.put(c, (g+1) << 3 | (m+1));
+                    int o = other.get(c, -1);
+                    if(o != -1 && g + 1 + (o >>> 3) < best){
+                        best = g + 1 + (o >>> 3);
+                        meet = c;
+                    }
+                    if(next_size == next.length){
+                        next = Arrays.copyOf(next, next_size*2);
+                    }
+                    next[next_size++] = c;
+                }
+            }
+            if(best != Integer.MAX_VALUE){
+                return stitch();
+            }
+            if(fwd){
+                front_f = next;
+                size_f = next_size;
+            }
+            else{
+                front_b = next;
+                size_b = next_size;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Open list entry of MM.
+     */
+    private static final class Entry {
+        final long key;
+        final int g,h,move;
+
+        Entry(long key, int g, int h, int move){
+            this.key = key;
+            this.g = g;
+            this.h = h;
+            this.move = move;
+        }
+    }
+
+    /**
+     * MM bidirectional heuristic search. Each direction orders its open list by
+     * priority max(g + h, 2g), where h is linear conflict towards the other end,
+     * so neither direction expands a node beyond the middle of an optimal path.
+     * Direction with the smaller priority is expanded. Search stops when the best
+     * meeting cost found is not greater than the smallest priority of both open lists.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node MM(){
+        forward = new LongIntMap(1 << 12);
+        backward = new LongIntMap(1 << 12);
+        State start = root.getState();
+        LinearConflict to_goal = new LinearConflict(goal), to_root = new LinearConflict(start);
+        BucketQueue<Entry> open_f = new BucketQueue<>(), open_b = new BucketQueue<>();
+        int hf = to_goal.estimate(start), hb = to_root.estimate(goal);
+        open_f.push(new Entry(start.getPacked(), 0, hf, -1), hf, 0);
+        open_b.push(new Entry(goal.getPacked(), 0, hb, -1), hb, 0);
+        forward.put(start.getPacked(), 0);
+        backward.put(goal.getPacked(), 0);
+        int best = Integer.MAX_VALUE;
+        if(start.getPacked() == goal.getPacked()){
+            return root;
+        }
+        while(!open_f.isEmpty() && !open_b.isEmpty()){
+            int pr_f = open_f.minF(), pr_b = open_b.minF();
+            if(best <= Math.min(pr_f, pr_b)){
+                break;
+            }
+            boolean fwd = pr_f <= pr_b;
+            Entry e = fwd ? open_f.pop() : open_b.pop();
+            LongIntMap own = fwd ? forward : backward, other = fwd ? backward : forward;
+            LinearConflict lc = fwd ? to_goal : to_root;
+            if((own.get(e.key, 0) >>> 3) < e.g){
+                continue;                           //outdated copy
+            }
+            nodes_expanded++;
+            State s = State.unpack(grid_size, e.key);
+            for(int m=0; m<4; m++){
+                if(m == (e.move^1) || !s.canMove(m)){
+                    continue;
+                }
+                State c = s.slide(m);
+                long key = c.getPacked();
+                int g = e.g + 1;
+                int v = own.get(key, -1);
+                if(v != -1 && (v >>> 3) <= g){
+                    continue;
+                }
+                own.put(key, g << 3 | (m+1));
+                int o = other.get(key, -1);
+                if(o != -1 && g + (o >>> 3) < best){
+                    best = g + (o >>> 3);
+                    meet = key;
+                }
+                int h = lc.update(s, c, m, e.h);
+                (fwd ? open_f : open_b).push(new Entry(key, g, h, m), Math.max(g + h, 2*g), g);
+            }
+        }
+        return (best == Integer.MAX_VALUE) ? null : stitch();
+    }
+
+    /**
+     * Builds root to goal path through meeting state from both move chains.
+     * Recorded depths only decrease, so each chain is at most as long as the meeting depth.
+     */
+    private Node stitch(){
+        long start = root.getState().getPacked(), end = goal.getPacked();
+        int[] head = new int[forward.get(meet, 0) >>> 3];
+        int k = head.length;
+        State s = State.unpack(grid_size, meet);
+        while(s.getPacked() != start){
+            int m = (forward.get(s.getPacked(), 0) & 7) - 1;
+            head[--k] = m;
+            s = s.slide(m^1);
+        }
+        Node node = root;
+        for(int i=k; i<head.length; i++){
+            node = node.slide(head[i]);
+        }
+        s = State.unpack(grid_size, meet);
+        while(s.getPacked() != end){
+            int m = (backward.get(s.getPacked(), 0) & 7) - 1;
+            node = node.slide(m^1);
+            s = s.slide(m^1);
+        }
+        return node;
+    }
+
+    public long getNodes_expanded() {
+        return nodes_expanded;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * BucketQueue class is the open list of A*.
+ * f and g values are small non negative integers, so items are kept in
+ * a bucket per (f, g) pair instead of a binary heap. Push and pop are O(1)
+ * apart from skipping empty buckets, which moves monotonically with consistent heuristics.
+ * Pop returns an item with the smallest f, and among those the largest g,
+ * same order as Node.compareTo().
+ * There is no decrease-key: push the item again with its better values
+ * and skip the outdated copy when it is popped (see Search.close()).
+ * @author VedFI
+ */
+public class BucketQueue<T> {
+    private Object[][][] items = new Object[0][][];   //items[f][g] is a stack
+    private int[][] counts = new int[0][];            //counts[f][g] = stack size
+    private int[] f_sizes = new int[0];               //number of items with f
+    private int[] top_g = new int[0];                 //no item with f has larger g
+    private int size,min_f;
+
+    public void push(T item, int f, int g){
+        if(f >= items.length){
+            int len = Math.max(f+1, items.length*2);
+            items = Arrays.copyOf(items, len);
+            counts = Arrays.copyOf(counts, len);
+            f_sizes = Arrays.copyOf(f_sizes, len);
+            top_g = Arrays.copyOf(top_g, len);
+        }
+        if(items[f] == null || g >= items[f].length){
+            int len = Math.max(g+1, (items[f] == null) ? 8 : items[f].length*2);
+            items[f] = (items[f] == null) ? new Object[len][] : Arrays.copyOf(items[f], len);
+            counts[f] = (counts[f] == null) ? new int[len] : Arrays.copyOf(counts[f], len);
+        }
+        Object[] stack = items[f][g];
+        int c = counts[f][g];
+        if(stack == null || c == stack.length){
+            stack = (stack == null) ? new Object[16] : Arrays.copyOf(stack, c*2);
+            items[f][g] = stack;
+        }
+        stack[c] = item;
+        counts[f][g] = c+1;
+        if(f_sizes[f]++ == 0 || g > top_g[f]){
+            top_g[f] = g;
+        }
+        if(size++ == 0 || f < min_f){
+            min_f = f;
+        }
+    }
+
+    /**
+     * @return item with smallest f and largest g, null if empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T pop(){
+        if(size == 0){
+            return null;
+        }
+        while(f_sizes[min_f] == 0){
+            min_f++;
+        }
+        int f = min_f, g = top_g[f];
+        while(counts[f][g] == 0){
+            g--;
+        }
+        top_g[f] = g;
+        int c = --counts[f][g];
+        Object item = items[f][g][c];
+        items[f][g][c] = null;
+        f_sizes[f]--;
+        size--;
+        return (T)item;
+    }
+
+    /**
+     * @return smallest f in queue, or Integer.MAX_VALUE if empty.
+     */
+    public int minF(){
+        if(size == 0){
+            return Integer.MAX_VALUE;
+        }
+        while(f_sizes[min_f] == 0){
+            min_f++;
+        }
+        return min_f;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Removes all items but keeps allocated buckets.
+     */
+    public void clear(){
+        for(int f=0; f<items.length; f++){
+            if(items[f] == null) continue;
+            for(int g=0; g<items[f].length; g++){
+                if(items[f][g] != null){
+                    Arrays.fill(items[f][g], 0, counts[f][g], null);
+                    counts[f][g] = 0;
+                }
+            }
+            f_sizes[f] = 0;
+            top_g[f] = 0;
+        }
+        size = 0;
+        min_f = 0;
+    }
+}
@@ -0,0 +1,443 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * ExternalBFS class is a breadth first search for boards up to 4x4 that keeps its layers on disk.
+ * Every depth layer is a file of packed states in ascending order without duplicates.
+ * Next layer is made in three steps:
+ *  - successors of the current layer are collected in a fixed size array,
+ *    which is sorted and written as a run file whenever it fills up,
+ *  - runs are merged into one sorted run, merging at most MAX_FAN_IN files at a time,
+ *  - merged run is streamed against the current and previous layers and states found
+ *    in neither are written as the new layer (delayed duplicate detection).
+ * Moves are reversible, so those two layers hold every already seen neighbour.
+ * Layer sizes are the depth histogram, depth of the last layer is the largest
+ * solution depth of the board (God's number when starting from goal).
+ * A manifest file records each completed layer, which layers are deleted and the depth of
+ * the target (if one is set), a stopped run continues from there.
+ * A layer is marked deleted before its file is removed, so a file left by a crash is removed on resume.
+ * @author VedFI
+ */
+public class ExternalBFS {
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAX_FAN_IN = 64;
+    private static final String MANIFEST = "manifest.txt";
+
+    private State start;
+    private Path dir;
+    private int grid_size;
+    private int memory_states = 1 << 22;     //successors sorted in memory at once
+    private long target;
+    private boolean has_target;
+    private int target_depth = -1;
+    private boolean keep_layers;
+    private long[] histogram = new long[0];
+    private int deleted_below;              //layers 0 .. deleted_below-1 are deleted
+
+    /**
+     * @param start: state of layer 0, usually the goal.
+     * @param dir: work directory, created if missing.
+     */
+    public ExternalBFS(State start, Path dir){
+        if(!start.isPacked()){
+            throw new IllegalArgumentException("external BFS supports boards up to 4x4");
+        }
+        this.start = start;
+        this.dir = dir;
+        grid_size = start.getGrid_size();
+    }
+
+    /**
+     * @param memory_states: number of successors sorted in memory before a run is written (8 bytes each).
+     */
+    public void setMemoryStates(int memory_states){
+        this.memory_states = memory_states;
+    }
+
+    /**
+     * Stops search after the layer that contains target. Its depth is getTarget_depth().
+     * A run resumed with a new target fails if layers that may hold it are already deleted.
+     */
+    public void setTarget(State target){
+        this.target = target.getPacked();
+        has_target = true;
+    }
+
+    /**
+     * Keeps every layer file, default deletes layers no longer needed for duplicate detection.
+     */
+    public void setKeepLayers(boolean keep_layers){
+        this.keep_layers = keep_layers;
+    }
+
+    /**
+     * Runs (or continues) the search until the state space or the target is exhausted.
+     * @return number of states at each depth.
+     */
+    public long[] run() throws IOException {
+        Files.createDirectories(dir);
+        int depth = resume();
+        if(depth < 0){
+            try(RunWriter w = new RunWriter(layer(0))){
+                w.write(start.getPacked());
+            }
+            depth = 0;
+            if(has_target && target == start.getPacked()){
+                target_depth = 0;
+            }
+            complete(0, 1);
+        }
+        while(histogram[depth] > 0 && target_depth < 0){
+            long count = expand(depth);
+            if(!keep_layers && depth >= 1){
+                deleted_below = depth;          //only depth and depth+1 are needed from now on
+            }
+            complete(depth+1, count);
+            removeDeleted();
+            depth++;
+        }
+        int last = histogram.length;
+        while(last > 0 && histogram[last-1] == 0) last--;
+        return Arrays.copyOf(histogram, last);
+    }
+
+    /**
+     * Reads manifest of a previous run of the same start state.
+     * @return last completed depth, -1 to start from scratch.
+     */
+    private int resume() throws IOException {
+        Path manifest = dir.resolve(MANIFEST);
+        try(DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, "{run-*,*.tmp}")){
+            for(Path p: leftovers){
+                Files.delete(p);            //files of an interrupted layer
+            }
+        }
+        if(!Files.exists(manifest)){
+            return -1;
+        }
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        String[] head = lines.get(0).split(" ");
+        if(Integer.parseInt(head[0]) != grid_size || Long.parseLong(head[1]) != start.getPacked()){
+            throw new IOException(dir + " holds a search of another start state");
+        }
+        //head[2], head[3]: target of the run that wrote the manifest and its depth (-1 if not reached)
+        boolean same_target = has_target && head.length > 3 && Long.parseLong(head[2]) == target;
+        histogram = new long[lines.size()-1];
+        deleted_below = 0;
+        for(int d=0; d<histogram.length; d++){
+            String[] line = lines.get(d+1).split(" ");
+            histogram[d] = Long.parseLong(line[1]);
+            if(line.length > 2 && line[2].equals("deleted")){
+                deleted_below = d+1;
+            }
+        }
+        removeDeleted();                    //files a crash left behind after marking them
+        int last = histogram.length-1;
+        if(has_target){
+            if(same_target){
+                target_depth = Integer.parseInt(head[3]);
+            }
+            else if(target == start.getPacked()){
+                target_depth = 0;
+            }
+            else{
+                for(int d=deleted_below; d<=last && target_depth < 0; d++){
+                    if(contains(d)) target_depth = d;
+                }
+                if(target_depth < 0 && deleted_below > 0){
+                    throw new IOException(dir + ": layers below " + deleted_below +
+                            " are deleted and may hold the target, use a new directory or setKeepLayers()");
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Removes files of layers marked deleted.
+     */
+    private void removeDeleted() throws IOException {
+        for(int d=0; d<deleted_below; d++){
+            Files.deleteIfExists(layer(d));
+        }
+    }
+
+    /**
+     * @return true if target is in layer d.
+     */
+    private boolean contains(int d) throws IOException {
+        try(RunReader r = new RunReader(layer(d))){
+            while(r.hasNext()){
+                long v = r.next();
+                if(v >= target) return v == target;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records layer d, deleted layers and target depth in manifest, replacing the file in one move.
+     */
+    private void complete(int d, long count) throws IOException {
+        histogram = Arrays.copyOf(histogram, d+1);
+        histogram[d] = count;
+        StringBuilder out = new StringBuilder();
+        out.append(grid_size).append(' ').append(start.getPacked());
+        if(has_target){
+            out.append(' ').append(target).append(' ').append(target_depth);
+        }
+        out.append('\n');
+        for(int i=0; i<=d; i++){
+            out.append(i).append(' ').append(histogram[i]);
+            if(i < deleted_below) out.append(" deleted");
+            out.append('\n');
+        }
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        Files.write(tmp, out.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path layer(int d){
+        return dir.resolve("layer-" + d + ".bin");
+    }
+
+    /**
+     * Writes layer depth+1 from layer depth.
+     * @return size of the new layer.
+     */
+    private long expand(int depth) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        long[] buffer = new long[memory_states];
+        int size = 0;
+        try(RunReader in = new RunReader(layer(depth))){
+            while(in.hasNext()){
+                State s = State.unpack(grid_size, in.next());
+                for(int m=0; m<4; m++){
+                    if(!s.canMove(m)){
+                        continue;
+                    }
+                    if(size == buffer.length){
+                        runs.add(writeRun(buffer, size, depth, runs.size()));
+                        size = 0;
+                    }
+                    buffer[size++] = s.slide(m).getPacked();
+                }
+            }
+        }
+        runs.add(writeRun(buffer, size, depth, runs.size()));
+        int pass = 0;
+        while(runs.size() > 1){
+            List<Path> merged = new ArrayList<>();
+            for(int i=0; i<runs.size(); i+=MAX_FAN_IN){
+                List<Path> group = runs.subList(i, Math.min(i+MAX_FAN_IN, runs.size()));
+                Path out = dir.resolve("run-" + depth + "-m" + pass + "-" + merged.size() + ".bin");
+                merge(group, out);
+                merged.add(out);
+            }
+            runs = merged;
+            pass++;
+        }
+        Path tmp = dir.resolve("layer-" + (depth+1) + ".tmp");
+        long count = subtract(runs.get(0), depth, tmp);
+        Files.delete(runs.get(0));
+        Files.move(tmp, layer(depth+1), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private Path writeRun(long[] buffer, int size, int depth, int index) throws IOException {
+        Arrays.sort(buffer, 0, size);
+        Path file = dir.resolve("run-" + depth + "-" + index + ".bin");
+        try(RunWriter w = new RunWriter(file)){
+            for(int i=0; i<size; i++){
+                if(i == 0 || buffer[i] != buffer[i-1]){
+                    w.write(buffer[i]);
+                }
+            }
+        }
+        return file;
+    }
+
+    /**
+     * K-way merge of sorted runs into one, dropping duplicates. Input files are deleted.
+     */
+    private void merge(List<Path> runs, Path out) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> Long.compare(a.peek(), b.peek()));
+        try(RunWriter w = new RunWriter(out)){
+            for(Path p: runs){
+                RunReader r = new RunReader(p);
+                if(r.hasNext()) heap.add(r); else r.close();
+            }
+            long last = -1;
+            while(!heap.isEmpty()){
+                RunReader r = heap.poll();
+                long v = r.next();
+                if(v != last){
+                    w.write(v);
+                    last = v;
+                }
+                if(r.hasNext()) heap.add(r); else r.close();
+            }
+        }
+        finally{
+            for(RunReader r: heap) r.close();
+        }
+        for(Path p: runs){
+            Files.delete(p);
+        }
+    }
+
+    /**
+     * Streams candidates against layers depth and depth-1, writes states found in neither.
+     * @return number of states written.
+     */
+    private long subtract(Path candidates, int depth, Path out) throws IOException {
+        long count = 0;
+        try(RunReader c = new RunReader(candidates);
+            RunReader cur = new RunReader(layer(depth));
+            RunReader prev = (depth > 0) ? new RunReader(layer(depth-1)) : null;
+            RunWriter w = new RunWriter(out)){
+            while(c.hasNext()){
+                long v = c.next();
+                while(cur.hasNext() && cur.peek() < v) cur.next();
+                while(prev != null && prev.hasNext() && prev.peek() < v) prev.next();
+                if((cur.hasNext() && cur.peek() == v) || (prev != null && prev.hasNext() && prev.peek() == v)){
+                    continue;
+                }
+                w.write(v);
+                count++;
+                if(has_target && v == target){
+                    target_depth = depth+1;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return depth of target, -1 if not set or not reached.
+     */
+    public int getTarget_depth(){
+        return target_depth;
+    }
+
+    /**
+     * Buffered sequential writer of longs.
+     */
+    private static final class RunWriter implements AutoCloseable {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        RunWriter(Path file) throws IOException {
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(long v) throws IOException {
+            if(buf.remaining() < 8){
+                flush();
+            }
+            buf.putLong(v);
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while(buf.hasRemaining()){
+                ch.write(buf);
+            }
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            ch.force(false);
+            ch.close();
+        }
+    }
+
+    /**
+     * Buffered sequential reader of longs with one value look ahead.
+     */
+    private static final class RunReader implements AutoCloseable {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private long head;
+        private boolean has_head;
+
+        RunReader(Path file) throws IOException {
+            ch = FileChannel.open(file, StandardOpenOption.READ);
+            buf.limit(0);
+            advance();
+        }
+
+        private void advance() throws IOException {
+            if(buf.remaining() < 8){
+                buf.compact();
+                while(buf.position() < 8 && ch.read(buf) > 0);
+                buf.flip();
+            }
+            has_head = buf.remaining() >= 8;
+            if(has_head){
+                head = buf.getLong();
+            }
+        }
+
+        boolean hasNext(){
+            return has_head;
+        }
+
+        long peek(){
+            return head;
+        }
+
+        long next() throws IOException {
+            long v = head;
+            advance();
+            return v;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+
+    /**
+     * Prints depth histogram of a board, starting from goal.
+     * Usage: ExternalBFS grid_size directory [memory_states]
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.out.println("Usage: ExternalBFS grid_size directory [memory_states]");
+            return;
+        }
+        State goal = new State(Integer.parseInt(args[0]));
+        goal.generateGoalState();
+        ExternalBFS bfs = new ExternalBFS(goal, Paths.get(args[1]));
+        if(args.length > 2){
+            bfs.setMemoryStates(Integer.parseInt(args[2]));
+        }
+        long t1 = System.currentTimeMillis();
+        long[] histogram = bfs.run();
+        long t2 = System.currentTimeMillis();
+        long total = 0;
+        for(int d=0; d<histogram.length; d++){
+            System.out.println(d + " " + histogram[d]);
+            total += histogram[d];
+        }
+        System.out.println("States: " + total + ", largest depth: " + (histogram.length-1) +
+                ", time: " + (t2-t1) + " ms");
+    }
+}
@@ -0,0 +1,288 @@
+import java.util.Arrays;
+
+/**
+ * FrontierSearch class is Korf's frontier search (breadth first or A*) for boards up to 4x4.
+ * Only open nodes are stored, an expanded node is deleted. Each open node keeps a bit for every
+ * operator that leads to a neighbour already expanded (set by that neighbour when it generated
+ * this node), those operators are never applied, so deleted nodes are never generated again.
+ * Breadth first mode holds about two layers, A* mode about its open list.
+ * Paths are recovered by divide and conquer: nodes deeper than a relay depth r
+ * (half of Manhattan distance of the start, at least 1) carry the index of their ancestor at depth r,
+ * relay states are stored in a layer array. Once goal is found, start to relay and relay to goal
+ * are solved again the same way, down to single moves.
+ * Heuristic is Manhattan distance (consistent, so a deleted node always had its smallest depth).
+ * @author VedFI
+ */
+public class FrontierSearch {
+    private final int grid_size,cells;
+    private final boolean breadth_first;
+    private final SuccessorGenerator gen;
+    private int[] dist;                 //tile*cells + cell -> distance to goal cell of tile
+    private long nodes_expanded,nodes_generated;
+    private int peak_stored;
+
+    //open nodes, struct of arrays with reused slots
+    private final LongIntMap index = new LongIntMap(1 << 12, 0.5f);    //packed state -> slot
+    private long[] keys = new long[1 << 12];
+    private short[] g = new short[1 << 12];     //-1 for a free slot
+    private short[] h = new short[1 << 12];
+    private byte[] used = new byte[1 << 12];
+    private byte[] blank = new byte[1 << 12];
+    private int[] relay = new int[1 << 12];     //index in relays, -1 above relay depth
+    private int[] free = new int[1 << 12];
+    private int free_count,slots;
+    private final IntBucketQueue open = new IntBucketQueue();
+
+    private long[] relays = new long[1 << 10];
+    private int relay_count;
+    private int found_depth;
+    private long found_relay;
+    private long[] histogram;           //states popped at each depth, see histogram()
+    private int histogram_length;
+
+    /**
+     * @param breadth_first: true for breadth first order, false for A*.
+     */
+    public FrontierSearch(int grid_size, boolean breadth_first){
+        if(grid_size > 4){
+            throw new IllegalArgumentException("frontier search supports boards up to 4x4");
+        }
+        this.grid_size = grid_size;
+        this.breadth_first = breadth_first;
+        cells = grid_size*grid_size;
+        gen = SuccessorGenerator.get(grid_size);
+    }
+
+    /**
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node search(Node root, State goal){
+        int[] moves = solve(root.getState().getPacked(), goal.getPacked());
+        if(moves == null){
+            return null;
+        }
+        Node node = root;
+        for(int m: moves){
+            node = node.slide(m);
+        }
+        return node;
+    }
+
+    /**
+     * @return moves from start to goal, null if goal is unreachable.
+     */
+    private int[] solve(long start, long goal){
+        if(start == goal){
+            return new int[0];
+        }
+        if(!run(start, goal, false)){
+            return null;
+        }
+        int b = blankOf(start);
+        if(found_depth == 1){
+            for(int m=0; m<4; m++){
+                int to = gen.target(b, m);
+                if(to >= 0 && State.slidePacked(start, b, to) == goal){
+                    return new int[]{m};
+                }
+            }
+        }
+        long middle = found_relay;
+        int[] first = solve(start, middle);
+        int[] second = solve(middle, goal);
+        int[] moves = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, moves, first.length, second.length);
+        return moves;
+    }
+
+    /**
+     * Breadth first frontier search from start over every reachable state.
+     * @return number of states at each depth.
+     */
+    public long[] histogram(State start){
+        run(start.getPacked(), 0, true);
+        return Arrays.copyOf(histogram, histogram_length);
+    }
+
+    /**
+     * Searches from start until goal is popped, or breadth first until open list is empty when counting layers.
+     * Sets found_depth and found_relay.
+     * @return true if goal found.
+     */
+    private boolean run(long start, long goal, boolean count_layers){
+        setGoal(goal);
+        clear();
+        boolean blind = breadth_first || count_layers;
+        int b0 = blankOf(start);
+        int h0 = manhattan(start);
+        int r = count_layers ? -1 : Math.max(1, h0/2);
+        if(count_layers){
+            histogram = new long[64];
+            histogram_length = 0;
+        }
+        int root = add(start, b0, 0, blind ? 0 : h0, 0, -1);
+        open.push(root, g[root] + h[root], 0);
+        while(!open.isEmpty()){
+            int f = open.minF();
+            int i = open.pop();
+            int gi = g[i];
+            if(gi < 0 || gi + h[i] != f){
+                continue;                   //stale copy, node improved or already expanded
+            }
+            long key = keys[i];
+            if(count_layers){
+                if(gi >= histogram.length) histogram = Arrays.copyOf(histogram, histogram.length*2);
+                histogram[gi]++;
+                histogram_length = Math.max(histogram_length, gi+1);
+            }
+            else if(key == goal){
+                found_depth = gi;
+                found_relay = (relay[i] >= 0) ? relays[relay[i]] : start;
+                return true;
+            }
+            int b = blank[i], bits = used[i], hi = h[i], ri = relay[i];
+            release(i);
+            nodes_expanded++;
+            for(int m=0; m<4; m++){
+                int to = gen.target(b, m);
+                if(to < 0 || (bits & 1 << m) != 0){
+                    continue;
+                }
+                long c = State.slidePacked(key, b, to);
+                nodes_generated++;
+                int cg = gi + 1;
+                int back = 1 << (m^1);
+                int ci = index.get(c, -1);
+                if(ci >= 0){
+                    used[ci] |= back;
+                    if(cg < g[ci]){
+                        g[ci] = (short)cg;
+                        relay[ci] = (cg == r) ? addRelay(c) : ri;
+                        open.push(ci, cg + h[ci], cg);
+                    }
+                    continue;
+                }
+                int ch = 0;
+                if(!blind){
+                    int t = (int)((key >>> (to<<2)) & 0xF);
+                    ch = hi + dist[t*cells + b] - dist[t*cells + to];
+                }
+                ci = add(c, to, cg, ch, back, (cg == r) ? addRelay(c) : ri);
+                open.push(ci, cg + ch, cg);
+            }
+        }
+        return false;
+    }
+
+    private void setGoal(long goal){
+        int[] goal_pos = new int[cells];
+        for(int i=0; i<cells; i++){
+            goal_pos[(int)((goal >>> (i<<2)) & 0xF)] = i;
+        }
+        dist = new int[cells*cells];
+        for(int t=1; t<cells; t++){
+            int gi = goal_pos[t];
+            for(int i=0; i<cells; i++){
+                dist[t*cells + i] = Math.abs(i/grid_size - gi/grid_size) + Math.abs(i%grid_size - gi%grid_size);
+            }
+        }
+    }
+
+    private int manhattan(long key){
+        int sum = 0;
+        for(int i=0; i<cells; i++){
+            sum += dist[(int)((key >>> (i<<2)) & 0xF)*cells + i];
+        }
+        return sum;
+    }
+
+    private static int blankOf(long key){
+        int b = 0;
+        while(((key >>> (b<<2)) & 0xF) != 0){
+            b++;
+        }
+        return b;
+    }
+
+    private int add(long key, int b, int depth, int estimate, int bits, int r){
+        int i;
+        if(free_count > 0){
+            i = free[--free_count];
+        }
+        else{
+            if(slots == keys.length){
+                grow();
+            }
+            i = slots++;
+        }
+        keys[i] = key;
+        g[i] = (short)depth;
+        h[i] = (short)estimate;
+        used[i] = (byte)bits;
+        blank[i] = (byte)b;
+        relay[i] = r;
+        index.put(key, i);
+        peak_stored = Math.max(peak_stored, index.size() + relay_count);
+        return i;
+    }
+
+    private void release(int i){
+        index.remove(keys[i], -1);
+        g[i] = -1;
+        if(free_count == free.length){
+            free = Arrays.copyOf(free, free.length*2);
+        }
+        free[free_count++] = i;
+    }
+
+    private void grow(){
+        int size = keys.length*2;
+        keys = Arrays.copyOf(keys, size);
+        g = Arrays.copyOf(g, size);
+        h = Arrays.copyOf(h, size);
+        used = Arrays.copyOf(used, size);
+        blank = Arrays.copyOf(blank, size);
+        relay = Arrays.copyOf(relay, size);
+    }
+
+    private int addRelay(long key){
+        if(relay_count == relays.length){
+            relays = Arrays.copyOf(relays, relays.length*2);
+        }
+        relays[relay_count] = key;
+        return relay_count++;
+    }
+
+    private void clear(){
+        index.clear();
+        open.clear();
+        free_count = 0;
+        slots = 0;
+        relay_count = 0;
+    }
+
+    /**
+     * @return expansions of every run, path recovery runs included.
+     */
+    public long getNodes_expanded(){
+        return nodes_expanded;
+    }
+
+    public long getNodes_generated(){
+        return nodes_generated;
+    }
+
+    /**
+     * @return largest number of open and relay states stored at once.
+     */
+    public int getPeak_stored(){
+        return peak_stored;
+    }
+
+    /**
+     * @return approximate bytes of one stored open node (slot arrays and index).
+     */
+    public static int bytesPerNode(){
+        return Long.BYTES + 2*Short.BYTES + 2 + Integer.BYTES + 2*(Long.BYTES + Integer.BYTES);
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * GoalPerimeter class holds every state within depth moves of a goal state (boards up to 4x4)
+ * with its exact distance to goal, found by breadth first search from goal.
+ * Keys are a sorted long array with a parallel distance array, looked up by binary search.
+ * A table is immutable once built, so one table per goal and depth is shared by every Search object
+ * and thread (see get()).
+ * Searches use it two ways: a state in the table has a known rest of path (see pathToGoal()),
+ * and a state outside it is more than depth moves from goal, which tightens any admissible
+ * estimate (see bound() and boundManhattan()).
+ * Table grows about twice per level on 4x4: depth 12 holds 15500 states, 16 about 2.4*10^5, 18 about 9*10^5.
+ * @author VedFI
+ */
+public class GoalPerimeter {
+    private static final ConcurrentHashMap<Key,FutureTask<GoalPerimeter>> SHARED = new ConcurrentHashMap<>();
+
+    private final int grid_size,depth;
+    private final SuccessorGenerator gen;
+    private final long[] keys;          //sorted
+    private final byte[] dist;          //dist[i]: moves from keys[i] to goal
+    private final int max_manhattan;    //largest Manhattan distance of the deepest layer
+
+    /**
+     * Returns the table of goal and depth, built on first call by the calling thread.
+     * Threads asking for a table that is being built wait for it, tables of other keys
+     * are built and returned meanwhile. Every (goal, depth) asked is kept.
+     */
+    public static GoalPerimeter get(State goal, int depth){
+        FutureTask<GoalPerimeter> task = SHARED.get(new Key(goal, depth));
+        if(task == null){
+            Key key = new Key(new State(goal), depth);
+            FutureTask<GoalPerimeter> own = new FutureTask<>(() -> new GoalPerimeter(key.goal, depth));
+            task = SHARED.putIfAbsent(key, own);
+            if(task == null){
+                task = own;
+                own.run();
+            }
+        }
+        try{
+            return task.get();
+        }
+        catch (ExecutionException e){
+            SHARED.remove(new Key(goal, depth), task);      //next call tries again
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException){
+                throw (RuntimeException)cause;
+            }
+            if(cause instanceof Error){
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for perimeter table", e);
+        }
+    }
+
+    /**
+     * Key of a shared table.
+     */
+    private static final class Key {
+        private final State goal;
+        private final int depth;
+
+        Key(State goal, int depth){
+            this.goal = goal;
+            this.depth = depth;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return (o instanceof Key) && ((Key) o).depth == depth && ((Key) o).goal.equals(goal);
+        }
+
+        @Override
+        public int hashCode(){
+            return goal.hashCode()*31 + depth;
+        }
+    }
+
+    /**
+     * @param depth: largest distance kept, 0 to 127.
+     */
+    public GoalPerimeter(State goal, int depth){
+        if(!goal.isPacked()){
+            throw new IllegalArgumentException("perimeter supports boards up to 4x4");
+        }
+        if(depth < 0 || depth > Byte.MAX_VALUE){
+            throw new IllegalArgumentException("depth: " + depth);
+        }
+        grid_size = goal.getGrid_size();
+        this.depth = depth;
+        gen = SuccessorGenerator.get(grid_size);
+        int cells = grid_size*grid_size;
+        int[] goal_pos = new int[cells];
+        for(int i=0; i<cells; i++){
+            goal_pos[goal.getTile(i)] = i;
+        }
+
+        //breadth first from goal, layer by layer
+        LongIntMap seen = new LongIntMap(1 << 12, 0.5f);    //key -> distance
+        long[] all = new long[1 << 12];
+        all[0] = goal.getPacked();
+        seen.put(all[0], 0);
+        int count = 1, layer_start = 0, d = 0;
+        while(d < depth && layer_start < count){
+            int layer_end = count;
+            for(int i=layer_start; i<layer_end; i++){
+                long key = all[i];
+                int b = blankOf(key);
+                for(int m=0; m<4; m++){
+                    int to = gen.target(b, m);
+                    if(to < 0){
+                        continue;
+                    }
+                    long c = State.slidePacked(key, b, to);
+                    if(seen.containsKey(c)){
+                        continue;
+                    }
+                    seen.put(c, d+1);
+                    if(count == all.length){
+                        all = Arrays.copyOf(all, count*2);
+                    }
+                    all[count++] = c;
+                }
+            }
+            layer_start = layer_end;
+            d++;
+        }
+        int deepest = 0;
+        for(int i=layer_start; i<count; i++){
+            int h = 0;
+            for(int c=0; c<cells; c++){
+                int t = (int)((all[i] >>> (c<<2)) & 0xF);
+                if(t != 0){
+                    int gi = goal_pos[t];
+                    h += Math.abs(c/grid_size - gi/grid_size) + Math.abs(c%grid_size - gi%grid_size);
+                }
+            }
+            deepest = Math.max(deepest, h);
+        }
+        max_manhattan = deepest;
+        keys = Arrays.copyOf(all, count);
+        Arrays.sort(keys);
+        dist = new byte[count];
+        for(int i=0; i<count; i++){
+            dist[i] = (byte)seen.get(keys[i], -1);
+        }
+    }
+
+    private static int blankOf(long key){
+        int b = 0;
+        while(((key >>> (b<<2)) & 0xF) != 0){
+            b++;
+        }
+        return b;
+    }
+
+    /**
+     * @return exact number of moves from packed state key to goal, -1 if key is outside the perimeter.
+     */
+    public int distance(long key){
+        int i = Arrays.binarySearch(keys, key);
+        return (i >= 0) ? dist[i] : -1;
+    }
+
+    /**
+     * Tightens an admissible estimate h of a state outside the perimeter:
+     * such a state is at least depth+1 moves from goal.
+     */
+    public int bound(int h){
+        return Math.max(h, depth + 1);
+    }
+
+    /**
+     * bound() for a Manhattan distance h to goal (agent excluded). Every path from outside enters
+     * the perimeter through a state p of the deepest layer, and Manhattan distance to p is at least
+     * h - manhattan(p), so minimizing over the layer gives h + depth - (largest Manhattan distance of the layer).
+     * Each move changes h by one, so distance has the parity of h and the result keeps it
+     * (an IDA* bound of the other parity would be a wasted iteration).
+     */
+    public int boundManhattan(int h){
+        int floor = depth + 1;
+        if(((floor - h) & 1) != 0){
+            floor++;
+        }
+        return Math.max(Math.max(h, floor), h + depth - max_manhattan);
+    }
+
+    /**
+     * Follows distances down to goal from a state in the perimeter.
+     * @return moves (State move codes) from key to goal.
+     */
+    public int[] pathToGoal(long key){
+        int e = distance(key);
+        if(e < 0){
+            throw new IllegalArgumentException("state is outside the perimeter");
+        }
+        int[] moves = new int[e];
+        int b = blankOf(key);
+        for(int k=0; k<moves.length; k++){
+            for(int m=0; m<4; m++){
+                int to = gen.target(b, m);
+                if(to >= 0){
+                    long c = State.slidePacked(key, b, to);
+                    if(distance(c) == e-1){
+                        moves[k] = m;
+                        key = c;
+                        b = to;
+                        e--;
+                        break;
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    public int getGrid_size(){
+        return grid_size;
+    }
+
+    /**
+     * @return largest distance kept.
+     */
+    public int getDepth(){
+        return depth;
+    }
+
+    /**
+     * @return number of states in the table.
+     */
+    public int size(){
+        return keys.length;
+    }
+
+    /**
+     * @return bytes held by the arrays.
+     */
+    public long footprintBytes(){
+        return (long)keys.length*(Long.BYTES + 1);
+    }
+}
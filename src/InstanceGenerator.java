@@ -0,0 +1,65 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * InstanceGenerator class writes solvable puzzles in BatchSolver input format, one per line.
+ * Instances are uniformly random solvable states, or random walks from goal
+ * of a given length for controlled difficulty. Same seed gives same instances.
+ * @author VedFI
+ */
+public class InstanceGenerator {
+
+    /**
+     * Usage: InstanceGenerator [-size N] [-count N] [-seed N] [-walk LENGTH] output|-
+     */
+    public static void main(String[] args) throws IOException {
+        int size = 4, count = 100, walk = -1;
+        long seed = 1;
+        int i = 0;
+        for(; i < args.length - 1; i++){
+            switch (args[i]){
+                case "-size": size = Integer.parseInt(args[++i]); break;
+                case "-count": count = Integer.parseInt(args[++i]); break;
+                case "-seed": seed = Long.parseLong(args[++i]); break;
+                case "-walk": walk = Integer.parseInt(args[++i]); break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        if(args.length - i != 1 || size < 2){
+            System.out.println("Usage: InstanceGenerator [-size N] [-count N] [-seed N] [-walk LENGTH] output|-");
+            return;
+        }
+        Writer out = new BufferedWriter(args[i].equals("-") ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(args[i]), StandardCharsets.UTF_8));
+        Random random = new Random(seed);
+        State s = new State(size);
+        StringBuilder line = new StringBuilder();
+        try{
+            for(int k=0; k<count; k++){
+                if(walk >= 0){
+                    s.generateRandomWalk(walk, random);
+                }
+                else{
+                    s.generateSolvableState(random);
+                }
+                line.setLength(0);
+                for(int c=0; c<size*size; c++){
+                    if(c > 0) line.append(' ');
+                    line.append(s.getTile(c));
+                }
+                out.write(line.append('\n').toString());
+            }
+        }
+        finally{
+            out.close();
+        }
+    }
+}
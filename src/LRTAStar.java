@@ -0,0 +1,214 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * LRTAStar class is a real time agent (learning real time A*) for boards of any size.
+ * Each step looks ahead with depth bounded minimin search (depth 1, 2, ... until the step's
+ * time budget is used, the deepest finished lookahead decides), raises the learned h of the
+ * current state to the best f found and commits to the move toward it.
+ * Learned values are kept in a bounded LRU table, base estimates are linear conflict.
+ * Path is the agent's trajectory with loops cut out, so it is not optimal;
+ * a larger step budget gives shorter paths.
+ * @author VedFI
+ */
+public class LRTAStar {
+    private static final int INF = Integer.MAX_VALUE;
+
+    private Node root;
+    private State goal;
+    private LinearConflict lc;
+    private long step_nanos;
+    private int max_steps = 1000000;
+    private final LinkedHashMap<State,Integer> learned;
+    private long nodes_expanded,steps;
+    private int max_lookahead;
+    private long deadline;
+    private boolean expired;
+
+    /**
+     * @param step_micros: time budget of one move, depth 1 lookahead always finishes.
+     * @param table_size: learned h values kept, least recently used are forgotten.
+     */
+    public LRTAStar(Node root, State goal, long step_micros, final int table_size){
+        if(table_size < 1){
+            throw new IllegalArgumentException("table size: " + table_size);
+        }
+        this.root = root;
+        this.goal = goal;
+        step_nanos = step_micros*1000;
+        lc = new LinearConflict(goal);
+        learned = new LinkedHashMap<State,Integer>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<State,Integer> eldest){
+                return size() > table_size;
+            }
+        };
+    }
+
+    /**
+     * Agent gives up after this many moves. Default is 1000000.
+     */
+    public void setMaxSteps(int max_steps){
+        this.max_steps = max_steps;
+    }
+
+    /**
+     * @return Node if goal reached. Else returns null (unsolvable or max steps reached).
+     */
+    public Node search(){
+        State s = root.getState();
+        if(!s.canReach(goal)){
+            return null;                    //see State.canReach()
+        }
+        ArrayList<Integer> path = new ArrayList<>();
+        ArrayList<State> states = new ArrayList<>();            //states.get(k): state after k moves of path
+        HashMap<State,Integer> visited = new HashMap<>();      //state -> its index in states
+        states.add(s);
+        visited.put(s, 0);
+        int prev = -1;
+        while(!s.isGoal(goal)){
+            if(steps >= max_steps){
+                return null;
+            }
+            deadline = System.nanoTime() + step_nanos;
+            int best_move = -1, best_f = INF;
+            for(int depth=1; ; depth++){
+                expired = false;
+                int move = -1, f = INF;
+                for(int m=0; m<4; m++){
+                    if(!s.canMove(m)){
+                        continue;
+                    }
+                    int v = lookahead(s.slide(m), m, 1, depth, f);
+                    if(expired && depth > 1){
+                        break;
+                    }
+                    //prefer not to undo last move among equals, so the agent does not bounce
+                    if(v < f || (v == f && move == (prev^1))){
+                        f = v;
+                        move = m;
+                    }
+                }
+                if(expired && depth > 1){
+                    break;
+                }
+                best_move = move;
+                best_f = f;
+                max_lookahead = Math.max(max_lookahead, depth);
+                if(f == INF || System.nanoTime() >= deadline || f <= depth){
+                    break;          //time is up, or goal is inside the lookahead
+                }
+            }
+            if(best_f != INF && best_f > h(s)){
+                learned.put(s, best_f);
+            }
+            s = s.slide(best_move);
+            prev = best_move;
+            steps++;
+            Integer at = visited.get(s);
+            if(at != null){
+                //loop, cut the path back to the first visit
+                for(int k=path.size()-1; k>=at; k--){
+                    visited.remove(states.remove(k+1));
+                    path.remove(k);
+                }
+            }
+            else{
+                path.add(best_move);
+                states.add(s);
+                visited.put(s, path.size());
+            }
+        }
+        Node node = root;
+        for(int m: path){
+            node = node.slide(m);
+        }
+        return node;
+    }
+
+    /**
+     * Minimin search below s, alpha pruned by the best f of the step so far.
+     * @return smallest g + h over frontier states at depth limit (or goal states above it).
+     */
+    private int lookahead(State s, int move, int g, int limit, int alpha){
+        nodes_expanded++;
+        if((nodes_expanded & 63) == 0 && System.nanoTime() >= deadline){
+            expired = true;
+        }
+        int f = g + h(s);
+        if(g == limit || f >= alpha || expired || s.isGoal(goal)){
+            return f;
+        }
+        int best = INF;
+        for(int m=0; m<4; m++){
+            if(m == (move^1) || !s.canMove(m)){
+                continue;
+            }
+            int v = lookahead(s.slide(m), m, g+1, limit, Math.min(alpha, best));
+            if(v < best){
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return learned h of s, linear conflict if not learned.
+     */
+    private int h(State s){
+        Integer v = learned.get(s);
+        return (v != null) ? v : lc.estimate(s);
+    }
+
+    public long getNodes_expanded(){
+        return nodes_expanded;
+    }
+
+    /**
+     * @return moves made by the agent, loops included.
+     */
+    public long getSteps(){
+        return steps;
+    }
+
+    /**
+     * @return deepest finished lookahead.
+     */
+    public int getMax_lookahead(){
+        return max_lookahead;
+    }
+
+    public int getLearned(){
+        return learned.size();
+    }
+
+    /**
+     * Prints solution length and time of each step budget on one seeded instance.
+     * Usage: LRTAStar grid_size walk_length seed table_size step_micros...
+     */
+    public static void main(String[] args){
+        if(args.length < 5){
+            System.out.println("Usage: LRTAStar grid_size walk_length seed table_size step_micros...");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        State goal = new State(n);
+        goal.generateGoalState();
+        State start = new State(n);
+        start.generateRandomWalk(Integer.parseInt(args[1]), new Random(Long.parseLong(args[2])));
+        int table_size = Integer.parseInt(args[3]);
+        System.out.println("step_micros,length,steps,ms,max_lookahead");
+        for(int i=4; i<args.length; i++){
+            long budget = Long.parseLong(args[i]);
+            LRTAStar agent = new LRTAStar(new Node(start, null, "START"), goal, budget, table_size);
+            long t1 = System.nanoTime();
+            Node n1 = agent.search();
+            long ms = (System.nanoTime() - t1)/1000000;
+            System.out.println(budget + "," + ((n1 == null) ? "-" : n1.getDepth()) + "," + agent.getSteps() +
+                    "," + ms + "," + agent.getMax_lookahead());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * LinearConflict class computes Manhattan distance plus linear conflicts.
+ * Two tiles in their goal line (row or column) but in reversed order
+ * need at least two extra moves, one of them has to leave the line.
+ * Per line, tiles that must leave = tiles in goal line - longest increasing subsequence.
+ * Agent is not counted, so the estimate is admissible.
+ * All row/column lookups are precomputed tables, no division in the loops.
+ * Line buffers are per thread and reused, one object serves many threads and calls allocate nothing.
+ * @author VedFI
+ */
+public class LinearConflict {
+    private int n,cells;
+    private int[] row,col;              //row and column of cell
+    private int[] goal_row,goal_col;    //goal row and column of tile
+    private int[] dist;                 //dist[tile*cells + cell]
+    private final ThreadLocal<int[]> scratch;   //line values in [0,n), subsequence tails in [n,2n)
+
+    public LinearConflict(State goal){
+        n = goal.getGrid_size();
+        cells = n*n;
+        row = new int[cells];
+        col = new int[cells];
+        goal_row = new int[cells];
+        goal_col = new int[cells];
+        dist = new int[cells*cells];
+        int size = 2*n;
+        scratch = ThreadLocal.withInitial(() -> new int[size]);
+        for(int i=0; i<cells; i++){
+            row[i] = i/n;
+            col[i] = i%n;
+        }
+        for(int i=0; i<cells; i++){
+            int t = goal.getTile(i);
+            goal_row[t] = row[i];
+            goal_col[t] = col[i];
+        }
+        for(int t=1; t<cells; t++){
+            for(int i=0; i<cells; i++){
+                dist[t*cells + i] = Math.abs(row[i]-goal_row[t]) + Math.abs(col[i]-goal_col[t]);
+            }
+        }
+    }
+
+    /**
+     * Computes estimate from scratch.
+     */
+    public int estimate(State s){
+        int h = 0;
+        for(int i=0; i<cells; i++){
+            h += dist[s.getTile(i)*cells + i];
+        }
+        int[] buf = scratch.get();
+        for(int l=0; l<n; l++){
+            h += 2*(rowConflicts(s, l, buf) + colConflicts(s, l, buf));
+        }
+        return h;
+    }
+
+    /**
+     * estimate() of a packed state (grid_size <= 4).
+     */
+    public int estimate(long key){
+        int h = 0;
+        for(int i=0; i<cells; i++){
+            h += dist[State.tileOf(key, i)*cells + i];
+        }
+        int[] buf = scratch.get();
+        for(int l=0; l<n; l++){
+            h += 2*(rowConflicts(key, l, buf) + colConflicts(key, l, buf));
+        }
+        return h;
+    }
+
+    /**
+     * Computes child estimate from parent's.
+     * Only the moved tile's Manhattan term changes, and only the two lines it leaves and enters:
+     * rows if agent moved up or down, columns if agent moved left or right.
+     * @param move: move that produced child from parent.
+     */
+    public int update(State parent, State child, int move, int parent_h){
+        int from = parent.target(move), to = parent.getBlank();
+        int t = child.getTile(to);
+        int h = parent_h + dist[t*cells + to] - dist[t*cells + from];
+        int[] buf = scratch.get();
+        if(move == State.UP || move == State.DOWN){
+            h += 2*(rowConflicts(child, row[from], buf) - rowConflicts(parent, row[from], buf)
+                    + rowConflicts(child, row[to], buf) - rowConflicts(parent, row[to], buf));
+        }
+        else{
+            h += 2*(colConflicts(child, col[from], buf) - colConflicts(parent, col[from], buf)
+                    + colConflicts(child, col[to], buf) - colConflicts(parent, col[to], buf));
+        }
+        return h;
+    }
+
+    /**
+     * update() of packed states (grid_size <= 4).
+     * @param blank: agent cell of parent, where the moved tile goes.
+     * @param target: agent cell of child, where the moved tile was.
+     */
+    public int update(long parent, long child, int blank, int target, int parent_h){
+        int from = target, to = blank;
+        int t = State.tileOf(child, to);
+        int h = parent_h + dist[t*cells + to] - dist[t*cells + from];
+        int[] buf = scratch.get();
+        if(col[from] == col[to]){
+            h += 2*(rowConflicts(child, row[from], buf) - rowConflicts(parent, row[from], buf)
+                    + rowConflicts(child, row[to], buf) - rowConflicts(parent, row[to], buf));
+        }
+        else{
+            h += 2*(colConflicts(child, col[from], buf) - colConflicts(parent, col[from], buf)
+                    + colConflicts(child, col[to], buf) - colConflicts(parent, col[to], buf));
+        }
+        return h;
+    }
+
+    private int rowConflicts(State s, int r, int[] line){
+        int k = 0;
+        for(int c=0; c<n; c++){
+            int t = s.getTile(r*n + c);
+            if(t != 0 && goal_row[t] == r){
+                line[k++] = goal_col[t];
+            }
+        }
+        return k - longestIncreasing(line, k, n);
+    }
+
+    private int colConflicts(State s, int c, int[] line){
+        int k = 0;
+        for(int r=0; r<n; r++){
+            int t = s.getTile(r*n + c);
+            if(t != 0 && goal_col[t] == c){
+                line[k++] = goal_row[t];
+            }
+        }
+        return k - longestIncreasing(line, k, n);
+    }
+
+    private int rowConflicts(long key, int r, int[] line){
+        int k = 0;
+        for(int c=0; c<n; c++){
+            int t = State.tileOf(key, r*n + c);
+            if(t != 0 && goal_row[t] == r){
+                line[k++] = goal_col[t];
+            }
+        }
+        return k - longestIncreasing(line, k, n);
+    }
+
+    private int colConflicts(long key, int c, int[] line){
+        int k = 0;
+        for(int r=0; r<n; r++){
+            int t = State.tileOf(key, r*n + c);
+            if(t != 0 && goal_col[t] == c){
+                line[k++] = goal_row[t];
+            }
+        }
+        return k - longestIncreasing(line, k, n);
+    }
+
+    /**
+     * @param tails: offset in a of k free entries.
+     * @return length of longest strictly increasing subsequence of first k values of a.
+     */
+    private static int longestIncreasing(int[] a, int k, int tails){
+        int len = 0;
+        for(int i=0; i<k; i++){
+            int lo = 0, hi = len;
+            while(lo < hi){
+                int mid = (lo+hi) >>> 1;
+                if(a[tails + mid] < a[i]) lo = mid+1;
+                else hi = mid;
+            }
+            a[tails + lo] = a[i];
+            if(lo == len) len++;
+        }
+        return len;
+    }
+}
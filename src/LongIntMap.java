@@ -0,0 +1,198 @@
+import java.util.Arrays;
+
+/**
+ * LongIntMap class is a hash table from long keys to int values.
+ * Uses open addressing with linear probing on two parallel primitive arrays,
+ * so nothing is boxed. Table doubles when size passes capacity*load_factor.
+ * Search uses it keyed on packed states (see State.getPacked()).
+ * @author VedFI
+ */
+public class LongIntMap {
+    private static final long FREE = 0L;       //key 0 is kept outside of the arrays
+
+    private long[] keys;
+    private int[] values;
+    private int size,threshold,mask;
+    private float load_factor;
+    private boolean hasZero;
+    private int zeroValue;
+
+    public LongIntMap(int capacity, float load_factor){
+        if(load_factor <= 0 || load_factor >= 1){
+            throw new IllegalArgumentException("load factor must be in (0,1): " + load_factor);
+        }
+        this.load_factor = load_factor;
+        allocate(tableSize(capacity, load_factor));
+    }
+
+    public LongIntMap(int capacity){
+        this(capacity, 0.5f);
+    }
+
+    private static int tableSize(int capacity, float load_factor){
+        long needed = (long)Math.ceil(Math.max(capacity,2)/load_factor);
+        if(needed > (1<<30)){
+            throw new IllegalArgumentException("capacity too large: " + capacity);
+        }
+        return Integer.highestOneBit((int)needed - 1) << 1;
+    }
+
+    private void allocate(int table_size){
+        keys = new long[table_size];
+        values = new int[table_size];
+        mask = table_size - 1;
+        threshold = (int)(table_size*load_factor);
+    }
+
+    /**
+     * Scrambles key bits, packed states differ mostly in their low nibbles.
+     */
+    private static int mix(long key){
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int)key;
+    }
+
+    /**
+     * @return value of key, or missing if key is not in the map.
+     */
+    public int get(long key, int missing){
+        if(key == FREE){
+            return hasZero ? zeroValue : missing;
+        }
+        int i = mix(key) & mask;
+        long k;
+        while((k = keys[i]) != FREE){
+            if(k == key){
+                return values[i];
+            }
+            i = (i+1) & mask;
+        }
+        return missing;
+    }
+
+    public boolean containsKey(long key){
+        if(key == FREE){
+            return hasZero;
+        }
+        int i = mix(key) & mask;
+        long k;
+        while((k = keys[i]) != FREE){
+            if(k == key){
+                return true;
+            }
+            i = (i+1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Inserts or replaces value of key.
+     */
+    public void put(long key, int value){
+        if(key == FREE){
+            if(!hasZero){
+                size++;
+            }
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+        int i = mix(key) & mask;
+        long k;
+        while((k = keys[i]) != FREE){
+            if(k == key){
+                values[i] = value;
+                return;
+            }
+            i = (i+1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if(++size > threshold){
+            rehash();
+        }
+    }
+
+    /**
+     * Removes key, later keys of its probe run are shifted back so no tombstones are left.
+     * @return removed value, or missing if key is not in the map.
+     */
+    public int remove(long key, int missing){
+        if(key == FREE){
+            if(!hasZero){
+                return missing;
+            }
+            hasZero = false;
+            size--;
+            return zeroValue;
+        }
+        int i = mix(key) & mask;
+        long k;
+        while((k = keys[i]) != key){
+            if(k == FREE){
+                return missing;
+            }
+            i = (i+1) & mask;
+        }
+        int removed = values[i];
+        int hole = i;
+        for(int j = (i+1) & mask; (k = keys[j]) != FREE; j = (j+1) & mask){
+            int home = mix(k) & mask;
+            //move k into hole unless its home lies cyclically in (hole, j]
+            if(((j - home) & mask) >= ((j - hole) & mask)){
+                keys[hole] = k;
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = FREE;
+        size--;
+        return removed;
+    }
+
+    private void rehash(){
+        long[] old_keys = keys;
+        int[] old_values = values;
+        allocate(keys.length << 1);
+        for(int j=0; j<old_keys.length; j++){
+            long k = old_keys[j];
+            if(k != FREE){
+                int i = mix(k) & mask;
+                while(keys[i] != FREE){
+                    i = (i+1) & mask;
+                }
+                keys[i] = k;
+                values[i] = old_values[j];
+            }
+        }
+    }
+
+    /**
+     * Removes all entries but keeps the allocated table.
+     */
+    public void clear(){
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasZero = false;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return number of slots in the table.
+     */
+    public int capacity(){
+        return keys.length;
+    }
+
+    /**
+     * @return bytes held by the key and value arrays.
+     */
+    public long footprintBytes(){
+        return (long)keys.length*(Long.BYTES + Integer.BYTES);
+    }
+}
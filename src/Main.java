@@ -14,7 +14,8 @@ public class Main {
          *      [7] [#] [8]     note that #'s value should be given 0.
          *      [4] [1] [6]
          *
-         * Start state can be randomly created but state very likely be unsolvable.
+         * Start state can be randomly created but state very likely be unsolvable,
+         * State.generateSolvableState() and generateRandomWalk() create solvable ones.
          */
         Block[][] puzzle = {
                 {new Block(3,0,0),new Block(2,0,1), new Block(5,0,2)},
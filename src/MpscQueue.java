@@ -0,0 +1,59 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * MpscQueue class is a lock free linked queue for many producers and one consumer.
+ * Producers swap themselves in as tail with one atomic exchange,
+ * the consumer follows next links from a dummy head without any atomic operation.
+ * @author VedFI
+ */
+public class MpscQueue<T> {
+    private static class Link<T> {
+        T value;
+        volatile Link<T> next;
+
+        Link(T value){
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Link<T>> tail;
+    private Link<T> head;                   //consumer side only
+
+    public MpscQueue(){
+        head = new Link<>(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Adds value to the queue. Safe to call from any thread.
+     */
+    public void offer(T value){
+        Link<T> link = new Link<>(value);
+        Link<T> prev = tail.getAndSet(link);
+        prev.next = link;
+    }
+
+    /**
+     * Removes oldest value. Only the consumer thread may call this.
+     * A value whose producer is between the exchange and the link write
+     * is not visible yet and will be returned by a later call.
+     * @return oldest value, null if none visible.
+     */
+    public T poll(){
+        Link<T> next = head.next;
+        if(next == null){
+            return null;
+        }
+        head = next;
+        T value = next.value;
+        next.value = null;
+        return value;
+    }
+
+    /**
+     * @return true if no value is visible to the consumer.
+     */
+    public boolean isEmpty(){
+        return head.next == null && tail.get() == head;
+    }
+}
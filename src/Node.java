@@ -1,10 +1,11 @@
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 
 /**
  * Node class defines the tree structure.
  * Every node object has fields for current state,
  * parent node, depth, heuristic cost and action string.
+ * Incremental heuristics also keep the move code and the plain estimate (without depth).
  * @author VedFI
  */
 
@@ -13,6 +14,9 @@ public class Node implements Comparable<Node> {
     private Node parent;
     private int depth,h_cost;
     private String action;
+    private int move = -1;              //State move code, -1 for root
+    private int h,h_index;              //estimate and table index of h_source
+    private Object h_source;            //heuristic that computed h
 
     /**
      * Constructor for Node Class.
@@ -31,26 +35,37 @@ public class Node implements Comparable<Node> {
      * @return ArrayList of Nodes from root to node.
      */
     public ArrayList<Node> getPath(){
-        ArrayList<Node> path = new ArrayList<>();
+        Node[] path = new Node[depth+1];
         Node temp = this;
-        while(temp!=null){
-            path.add(temp);
+        for(int i=depth; i>=0; i--){
+            path[i] = temp;
             temp = temp.parent;
         }
-        Collections.reverse(path);
-        return path;
+        return new ArrayList<>(Arrays.asList(path));
+    }
+
+    /**
+     * @return State move codes from root to node.
+     */
+    public int[] getMoves(){
+        int[] moves = new int[depth];
+        Node temp = this;
+        for(int i=depth-1; i>=0; i--){
+            moves[i] = temp.move;
+            temp = temp.parent;
+        }
+        return moves;
     }
 
     /**
      * Prints each node object's Action string of path.
      */
     public void printPath(){
-        ArrayList<Node> path = getPath();
-        String out = "\n";
-        for(Node n: path){
-            out+= n.action+"-> ";
+        StringBuilder out = new StringBuilder("\n");
+        for(Node n: getPath()){
+            out.append(n.action).append("-> ");
         }
-        out+="GOAL\n";
+        out.append("GOAL\n");
         System.out.println(out);
     }
 
@@ -66,16 +81,21 @@ public class Node implements Comparable<Node> {
     }
 
     /**
-     * Calls directional move methods (moveUp, moveDown, moveLeft, moveRight)
-     * And adds to arraylist if they didn't return null.
+     * Slides agent in every direction (left, right, up, down) it can move to
+     * And adds children to arraylist. Move that takes agent back to the parent's state is skipped.
      * @return ArrayList of child nodes.
      */
     public ArrayList<Node> move(){
-        ArrayList<Node> child_nodes = new ArrayList<>();
-        if(moveLeft()!=null) child_nodes.add(moveLeft());
-        if(moveRight()!=null) child_nodes.add(moveRight());
-        if(moveUp()!=null) child_nodes.add(moveUp());
-        if(moveDown()!=null) child_nodes.add(moveDown());
+        ArrayList<Node> child_nodes = new ArrayList<>(4);
+        SuccessorGenerator gen = SuccessorGenerator.get(state.getGrid_size());
+        int blank = state.getBlank();
+        for(int m=0; m<4; m++){
+            if(m != (move^1) && gen.target(blank, m) >= 0){
+                Node child = new Node(state.slide(m),this,State.ACTIONS[m]);
+                child.move = m;
+                child_nodes.add(child);
+            }
+        }
         return child_nodes;
     }
 
@@ -83,112 +103,42 @@ public class Node implements Comparable<Node> {
      * @return Children node object when parent move to left.
      */
     public Node moveLeft(){
-       state.checkMovable();
-       if(state.isMovableLeft()){
-           Block[][] puzzle = new Block[state.getGrid_size()][state.getGrid_size()];
-           for(int x=0;x<state.getGrid_size();x++){
-               for(int y=0;y<state.getGrid_size();y++){
-                   puzzle[x][y] = state.getPuzzle()[x][y];
-               }
-           }
-           State s = new State(puzzle);
-           Node child = null;
-           Block b,agent;
-           b = state.getLeft();
-           agent = state.getAgent();
-           s.setPuzzleCell(agent.getX(),agent.getY(),b.getValue());
-           s.setPuzzleCell(b.getX(),b.getY(),0);
-           s.setAgent(b.getX(),b.getY());
-           child = new Node(s,this,"LEFT");
-           return child;
-       }
-       else{
-           return null;
-       }
+        return slide(State.LEFT);
     }
 
     /**
      * @return Children node object when parent move to right.
      */
     public Node moveRight(){
-        state.checkMovable();
-        if(state.isMovableRight()){
-            Block[][] puzzle = new Block[state.getGrid_size()][state.getGrid_size()];
-            for(int x=0;x<state.getGrid_size();x++){
-                for(int y=0;y<state.getGrid_size();y++){
-                    puzzle[x][y] = state.getPuzzle()[x][y];
-                }
-            }
-            State s = new State(puzzle);
-            Node child = null;
-            Block b,agent;
-            b = state.getRight();
-            agent = state.getAgent();
-            s.setPuzzleCell(agent.getX(),agent.getY(),b.getValue());
-            s.setPuzzleCell(b.getX(),b.getY(),0);
-            s.setAgent(b.getX(),b.getY());
-            child = new Node(s,this,"RIGHT");
-            return child;
-        }
-        else{
-            return null;
-        }
+        return slide(State.RIGHT);
     }
 
     /**
      * @return Children node object when parent move to up.
      */
     public Node moveUp(){
-        state.checkMovable();
-        if(state.isMovableUp()){
-            Block[][] puzzle = new Block[state.getGrid_size()][state.getGrid_size()];
-            for(int x=0;x<state.getGrid_size();x++){
-                for(int y=0;y<state.getGrid_size();y++){
-                    puzzle[x][y] = state.getPuzzle()[x][y];
-                }
-            }
-            State s = new State(puzzle);
-            Node child = null;
-            Block b,agent;
-            b = state.getUp();
-            agent = state.getAgent();
-            s.setPuzzleCell(agent.getX(),agent.getY(),b.getValue());
-            s.setPuzzleCell(b.getX(),b.getY(),0);
-            s.setAgent(b.getX(),b.getY());
-            child = new Node(s,this,"UP");
-            return child;
-        }
-        else{
-            return null;
-        }
+        return slide(State.UP);
     }
 
     /**
      * @return Children node object when parent move to down.
      */
     public Node moveDown(){
-        state.checkMovable();
-        if(state.isMovableDown()){
-            Block[][] puzzle = new Block[state.getGrid_size()][state.getGrid_size()];
-            for(int x=0;x<state.getGrid_size();x++){
-                for(int y=0;y<state.getGrid_size();y++){
-                    puzzle[x][y] = state.getPuzzle()[x][y];
-                }
-            }
-            State s = new State(puzzle);
-            Node child = null;
-            Block b,agent;
-            b = state.getDown();
-            agent = state.getAgent();
-            s.setPuzzleCell(agent.getX(),agent.getY(),b.getValue());
-            s.setPuzzleCell(b.getX(),b.getY(),0);
-            s.setAgent(b.getX(),b.getY());
-            child = new Node(s,this,"DOWN");
-            return child;
-        }
-        else{
+        return slide(State.DOWN);
+    }
+
+    /**
+     * Creates child node by swapping agent with its neighbour on a copy of packed state.
+     * @param move: one of State.LEFT, State.RIGHT, State.UP, State.DOWN.
+     * @return Children node object, null if agent is on that border.
+     */
+    public Node slide(int move){
+        if(!state.canMove(move)){
             return null;
         }
+        Node child = new Node(state.slide(move),this,State.ACTIONS[move]);
+        child.move = move;
+        return child;
     }
 
     /**
@@ -198,16 +148,24 @@ public class Node implements Comparable<Node> {
      * Then updates h_cost variable with calculated value.
      */
     public void h1(){
-        int t,tx,ty;
-        h_cost = depth;
-        for(int x=0;x<state.getGrid_size();x++){
-            for(int y=0;y<state.getGrid_size();y++){
-                t = state.getPuzzle()[x][y].getValue();
-                tx = t/state.getGrid_size();
-                ty = t - (tx*state.getGrid_size());
-                h_cost += Math.abs(x-tx) + Math.abs(y-ty);
+        h_cost = depth + h1(state);
+    }
+
+    /**
+     * h1() estimate of a state, without depth. Also used by searches that store no Node objects.
+     */
+    static int h1(State state){
+        int t,tx,ty,n = state.getGrid_size();
+        int h = 0;
+        for(int x=0;x<n;x++){
+            for(int y=0;y<n;y++){
+                t = state.getTile(x,y);
+                tx = t/n;
+                ty = t - (tx*n);
+                h += Math.abs(x-tx) + Math.abs(y-ty);
             }
         }
+        return h;
     }
 
     /**
@@ -216,18 +174,21 @@ public class Node implements Comparable<Node> {
      * Then updates h_cost variable with calculated value.
      */
     public void h2(){
-        int t,tx,ty;
-        h_cost = depth;
-        for(int x=0;x<state.getGrid_size();x++) {
-            for (int y = 0; y < state.getGrid_size(); y++) {
-                t = state.getPuzzle()[x][y].getValue();
-                tx = t/state.getGrid_size();
-                ty = t - (tx*state.getGrid_size());
-                if(x != tx || y != ty){
-                    h_cost++;
-                }
+        h_cost = depth + h2(state);
+    }
+
+    /**
+     * h2() estimate of a state, without depth.
+     */
+    static int h2(State state){
+        int n = state.getGrid_size();
+        int h = 0;
+        for(int i=0;i<n*n;i++) {
+            if(state.getTile(i) != i){
+                h++;
             }
         }
+        return h;
     }
 
     /**
@@ -236,45 +197,23 @@ public class Node implements Comparable<Node> {
      * Then updates h_cost variable with calculated value.
      */
     public void h3(){
-        int t,tx,ty;
-        h_cost = depth;
-        state.checkMovable();
-        if(state.isMovableDown()){
-            Block b = state.getDown();
-            t = b.getValue();
-            tx = t/state.getGrid_size();
-            ty = t - (tx*state.getGrid_size());
-            if(b.getX() != tx || b.getY() != ty){
-                h_cost++;
-            }
-        }
-        if(state.isMovableUp()){
-            Block b = state.getUp();
-            t = b.getValue();
-            tx = t/state.getGrid_size();
-            ty = t - (tx*state.getGrid_size());
-            if(b.getX() != tx || b.getY() != ty){
-                h_cost++;
-            }
-        }
-        if(state.isMovableLeft()){
-            Block b = state.getLeft();
-            t = b.getValue();
-            tx = t/state.getGrid_size();
-            ty = t - (tx*state.getGrid_size());
-            if(b.getX() != tx || b.getY() != ty){
-                h_cost++;
-            }
-        }
-        if(state.isMovableRight()){
-            Block b = state.getRight();
-            t = b.getValue();
-            tx = t/state.getGrid_size();
-            ty = t - (tx*state.getGrid_size());
-            if(b.getX() != tx || b.getY() != ty){
-                h_cost++;
+        h_cost = depth + h3(state);
+    }
+
+    /**
+     * h3() estimate of a state, without depth.
+     */
+    static int h3(State state){
+        int h = 0;
+        for(int m=0;m<4;m++){
+            if(state.canMove(m)){
+                int i = state.target(m);
+                if(state.getTile(i) != i){
+                    h++;
+                }
             }
         }
+        return h;
     }
 
     /**
@@ -283,37 +222,67 @@ public class Node implements Comparable<Node> {
      * Then updates h_cost variable with calculated value.
      */
     public void h4(){
-        int t,tx,ty;
-        h_cost = depth;
-        state.checkMovable();
-        if(state.isMovableDown()){
-            Block b = state.getDown();
-            t = b.getValue();
-            tx = t/state.getGrid_size();
-            ty = t - (tx*state.getGrid_size());
-            h_cost += Math.abs(b.getX()-tx) + Math.abs(b.getY()-ty);
+        h_cost = depth + h4(state);
+    }
+
+    /**
+     * h4() estimate of a state, without depth.
+     */
+    static int h4(State state){
+        int t,n = state.getGrid_size();
+        int h = 0;
+        for(int m=0;m<4;m++){
+            if(state.canMove(m)){
+                int i = state.target(m);
+                t = state.getTile(i);
+                h += Math.abs(i/n - t/n) + Math.abs(i%n - t%n);
+            }
         }
-        if(state.isMovableUp()){
-            Block b = state.getUp();
-            t = b.getValue();
-            tx = t/state.getGrid_size();
-            ty = t - (tx*state.getGrid_size());
-            h_cost += Math.abs(b.getX()-tx) + Math.abs(b.getY()-ty);
+        return h;
+    }
+
+    /**
+     * heuristic function for A* search
+     * Manhattan distance plus linear conflicts.
+     * Computed from parent's estimate if parent used the same heuristic.
+     * Then updates h_cost variable with calculated value.
+     */
+    public void hLinearConflict(LinearConflict lc){
+        if(parent != null && parent.h_source == lc){
+            h = lc.update(parent.state, state, move, parent.h);
         }
-        if(state.isMovableLeft()){
-            Block b = state.getLeft();
-            t = b.getValue();
-            tx = t/state.getGrid_size();
-            ty = t - (tx*state.getGrid_size());
-            h_cost += Math.abs(b.getX()-tx) + Math.abs(b.getY()-ty);
+        else{
+            h = lc.estimate(state);
         }
-        if(state.isMovableRight()){
-            Block b = state.getRight();
-            t = b.getValue();
-            tx = t/state.getGrid_size();
-            ty = t - (tx*state.getGrid_size());
-            h_cost += Math.abs(b.getX()-tx) + Math.abs(b.getY()-ty);
+        h_source = lc;
+        h_cost = depth + h;
+    }
+
+    /**
+     * heuristic function for A* search
+     * Walking distance, sum of vertical and horizontal table values.
+     * Table indexes are computed from parent's if parent used the same heuristic.
+     * Then updates h_cost variable with calculated value.
+     */
+    public void hWalkingDistance(WalkingDistance wd){
+        if(parent != null && parent.h_source == wd){
+            h_index = wd.update(parent.h_index, move, state.getTile(parent.state.getBlank()));
+        }
+        else{
+            h_index = wd.index(state);
         }
+        h = wd.estimate(h_index);
+        h_source = wd;
+        h_cost = depth + h;
+    }
+
+    /**
+     * heuristic function for A* search
+     * Sums pattern database values of current state.
+     * Then updates h_cost variable with calculated value.
+     */
+    public void hPDB(AdditivePatternDatabase pdb){
+        h_cost = depth + pdb.estimate(state);
     }
 
     /**
@@ -340,6 +309,17 @@ public class Node implements Comparable<Node> {
         return h_cost;
     }
 
+    public Node getParent() {
+        return parent;
+    }
+
+    /**
+     * @return State move code that produced this node, -1 for root.
+     */
+    public int getMove() {
+        return move;
+    }
+
     public State getState() {
         return state;
     }
@@ -0,0 +1,150 @@
+import java.util.Arrays;
+
+/**
+ * NodeArena class stores search tree nodes of packed boards (up to 4x4) in parallel primitive arrays.
+ * A node is an int index: packed state, parent index, depth (g), estimate (h),
+ * and one byte with agent index and 2 bit move code. That is 17 bytes per node,
+ * against a Node object, its State object and the references between them.
+ * Heuristics with a table index (walking distance) keep it in one more int per node,
+ * that array is only allocated once setH_index() is called.
+ * Nodes are only appended, so index order is generation order.
+ * Path is rebuilt from the parent index chain (see toNode()).
+ * @author VedFI
+ */
+public class NodeArena {
+    private int grid_size;
+    private long[] states;
+    private int[] parents;
+    private short[] g,h;
+    private byte[] moves;               //blank << 2 | move
+    private int[] h_index;              //heuristic table index, null until first used
+    private int size;
+
+    public NodeArena(int grid_size, int capacity){
+        this.grid_size = grid_size;
+        capacity = Math.max(capacity, 16);
+        states = new long[capacity];
+        parents = new int[capacity];
+        g = new short[capacity];
+        h = new short[capacity];
+        moves = new byte[capacity];
+    }
+
+    /**
+     * Appends a node.
+     * @param parent: index of parent node, -1 for root.
+     * @param move: State move code that produced the node, ignored for root.
+     * @return index of the new node.
+     */
+    public int add(long state, int blank, int parent, int g, int h, int move){
+        if(size == states.length){
+            int len = size*2;
+            states = Arrays.copyOf(states, len);
+            parents = Arrays.copyOf(parents, len);
+            this.g = Arrays.copyOf(this.g, len);
+            this.h = Arrays.copyOf(this.h, len);
+            moves = Arrays.copyOf(moves, len);
+            if(h_index != null) h_index = Arrays.copyOf(h_index, len);
+        }
+        states[size] = state;
+        parents[size] = parent;
+        this.g[size] = (short)g;
+        this.h[size] = (short)h;
+        moves[size] = (byte)(blank << 2 | (move & 3));
+        return size++;
+    }
+
+    public long getPacked(int i){
+        return states[i];
+    }
+
+    public int getBlank(int i){
+        return moves[i] >>> 2;
+    }
+
+    /**
+     * @return State move code that produced node i, -1 for root.
+     */
+    public int getMove(int i){
+        return (parents[i] < 0) ? -1 : moves[i] & 3;
+    }
+
+    public int getParent(int i){
+        return parents[i];
+    }
+
+    public int getG(int i){
+        return g[i];
+    }
+
+    public int getH(int i){
+        return h[i];
+    }
+
+    /**
+     * Stores heuristic table index of node i, for incremental updates of its children.
+     */
+    public void setH_index(int i, int index){
+        if(h_index == null){
+            h_index = new int[states.length];
+        }
+        h_index[i] = index;
+    }
+
+    public int getH_index(int i){
+        return h_index[i];
+    }
+
+    /**
+     * @return new State object of node i.
+     */
+    public State getState(int i){
+        return new State(grid_size, states[i], moves[i] >>> 2);
+    }
+
+    /**
+     * Follows parent links of node i back to the root.
+     * @return move codes from root to node i.
+     */
+    public int[] getMoves(int i){
+        int[] path = new int[g[i]];
+        for(int k=path.length; k>0; i=parents[i]){
+            path[--k] = moves[i] & 3;
+        }
+        return path;
+    }
+
+    /**
+     * Converts node i to a Node chain that starts with root, for printing and output.
+     * @param root: Node of arena index 0.
+     */
+    public Node toNode(int i, Node root){
+        Node node = root;
+        for(int m: getMoves(i)){
+            node = node.slide(m);
+        }
+        return node;
+    }
+
+    public int getGrid_size(){
+        return grid_size;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Removes all nodes but keeps allocated arrays.
+     */
+    public void clear(){
+        size = 0;
+    }
+
+    /**
+     * @return bytes held by the arrays.
+     */
+    public long footprintBytes(){
+        return (long)states.length*((h_index != null) ? 21 : 17);
+    }
+}
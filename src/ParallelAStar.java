@@ -0,0 +1,259 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ParallelAStar class is hash distributed A* (HDA*) for boards up to 4x4.
+ * Every state is owned by one worker thread, chosen by a hash of its packed key.
+ * Each worker has its own open list and best depth map. Generated children that
+ * belong to another worker are sent to its lock free inbox (see MpscQueue.java).
+ * First goal found is not necessarily optimal, it only sets the incumbent cost.
+ * Search ends when every worker is idle (no node with f below incumbent, empty inbox)
+ * and every sent message has been received, so the incumbent is optimal
+ * if the heuristic is admissible.
+ * Heuristic is linear conflict, or pattern database if one is given.
+ * Workers expand packed keys only, children come from SuccessorGenerator move tables
+ * and State.slidePacked(), so no State object is built per node.
+ * @author VedFI
+ */
+public class ParallelAStar {
+    private Node root;
+    private State goal;
+    private int threads;
+    private long goal_key;
+    private SuccessorGenerator gen;
+    private AdditivePatternDatabase pdb;
+    private LinearConflict lc;
+
+    private Worker[] workers;
+    private final AtomicInteger incumbent = new AtomicInteger(Integer.MAX_VALUE);
+    private final AtomicLong sent = new AtomicLong(), received = new AtomicLong();
+    private volatile boolean done;
+
+    /**
+     * @param pdb: pattern database heuristic, null for linear conflict.
+     */
+    public ParallelAStar(Node root, State goal, int threads, AdditivePatternDatabase pdb){
+        if(!root.getState().isPacked()){
+            throw new IllegalArgumentException("parallel A* supports boards up to 4x4");
+        }
+        if(threads < 1){
+            throw new IllegalArgumentException("threads: " + threads);
+        }
+        this.root = root;
+        this.goal = goal;
+        this.threads = threads;
+        this.pdb = pdb;
+        goal_key = goal.getPacked();
+        gen = SuccessorGenerator.get(goal.getGrid_size());
+        if(pdb == null){
+            lc = new LinearConflict(goal);
+        }
+    }
+
+    /**
+     * Unit of open lists and messages.
+     */
+    private static final class Entry {
+        final long key;
+        final int blank,g,h,move;
+
+        Entry(long key, int blank, int g, int h, int move){
+            this.key = key;
+            this.blank = blank;
+            this.g = g;
+            this.h = h;
+            this.move = move;
+        }
+    }
+
+    private int owner(long key){
+        return (int)(((key*0x9E3779B97F4A7C15L) >>> 33) % threads);
+    }
+
+    private int estimate(State s){
+        return (pdb != null) ? pdb.estimate(s) : lc.estimate(s);
+    }
+
+    /**
+     * Runs the search on worker threads and waits for them.
+     * @return goal node with path from root, null if goal is unreachable.
+     */
+    public Node search() throws InterruptedException {
+        workers = new Worker[threads];
+        for(int i=0; i<threads; i++){
+            workers[i] = new Worker(i);
+        }
+        State s = root.getState();
+        long key = s.getPacked();
+        send(-1, new Entry(key, s.getBlank(), 0, estimate(s), -1));
+        Thread[] pool = new Thread[threads];
+        for(int i=0; i<threads; i++){
+            pool[i] = new Thread(workers[i], "hda-" + i);
+            pool[i].start();
+        }
+        for(Thread t: pool){
+            t.join();
+        }
+        return (incumbent.get() == Integer.MAX_VALUE) ? null : rebuildPath();
+    }
+
+    private void send(int from, Entry e){
+        sent.incrementAndGet();
+        Worker w = workers[owner(e.key)];
+        w.inbox.offer(e);
+        if(from >= 0){
+            workers[from].messages_sent++;
+        }
+    }
+
+    /**
+     * Walks back from goal through owners' maps, each entry keeps the move that reached it.
+     */
+    private Node rebuildPath(){
+        int length = incumbent.get();
+        int[] moves = new int[length];
+        State s = new State(goal);
+        long root_key = root.getState().getPacked();
+        int d = length;
+        while(s.getPacked() != root_key && d > 0){
+            int v = workers[owner(s.getPacked())].best.get(s.getPacked(), -1);
+            int move = (v & 7) - 1;
+            moves[--d] = move;
+            s = s.slide(move^1);
+        }
+        Node node = root;
+        for(int i=d; i<length; i++){
+            node = node.slide(moves[i]);
+        }
+        return node;
+    }
+
+    /**
+     * Checks termination in two waves: all idle and sent == received,
+     * both unchanged between the waves.
+     */
+    private boolean quiescent(){
+        long r1 = received.get();
+        for(Worker w: workers) if(!w.idle) return false;
+        long s1 = sent.get();
+        if(r1 != s1) return false;
+        long r2 = received.get();
+        for(Worker w: workers) if(!w.idle) return false;
+        return sent.get() == s1 && r2 == r1;
+    }
+
+    private final class Worker implements Runnable {
+        final int id;
+        final MpscQueue<Entry> inbox = new MpscQueue<>();
+        final BucketQueue<Entry> open = new BucketQueue<>();
+        final LongIntMap best = new LongIntMap(1 << 16);    //key -> g << 3 | (move+1)
+        volatile boolean idle;
+        long expanded,messages_sent,messages_received;
+
+        Worker(int id){
+            this.id = id;
+        }
+
+        @Override
+        public void run(){
+            while(!done){
+                Entry e;
+                while((e = inbox.poll()) != null){
+                    idle = false;
+                    accept(e);
+                    messages_received++;
+                    received.incrementAndGet();
+                }
+                if(open.minF() < incumbent.get()){
+                    idle = false;
+                    expand(open.pop());
+                }
+                else{
+                    idle = true;
+                    if(inbox.isEmpty() && quiescent()){
+                        done = true;
+                    }
+                    else{
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+        }
+
+        private void accept(Entry e){
+            int v = best.get(e.key, -1);
+            if(v != -1 && (v >>> 3) <= e.g){
+                return;
+            }
+            best.put(e.key, e.g << 3 | (e.move+1));
+            open.push(e, e.g + e.h, e.g);
+        }
+
+        private void expand(Entry e){
+            if((best.get(e.key, -1) >>> 3) < e.g){
+                return;                             //outdated copy
+            }
+            if(e.key == goal_key){
+                incumbent.accumulateAndGet(e.g, Math::min);
+                return;
+            }
+            expanded++;
+            for(int m=0; m<4; m++){
+                int to = gen.target(e.blank, m);
+                if(m == (e.move^1) || to < 0){
+                    continue;
+                }
+                long c = State.slidePacked(e.key, e.blank, to);
+                int h = (pdb != null) ? pdb.estimate(c) : lc.update(e.key, c, e.blank, to, e.h);
+                if(e.g + 1 + h >= incumbent.get()){
+                    continue;
+                }
+                Entry child = new Entry(c, to, e.g+1, h, m);
+                if(owner(child.key) == id){
+                    accept(child);
+                }
+                else{
+                    send(id, child);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return nodes expanded by each worker.
+     */
+    public long[] getExpanded(){
+        long[] r = new long[threads];
+        for(int i=0; i<threads; i++) r[i] = workers[i].expanded;
+        return r;
+    }
+
+    /**
+     * @return messages sent by each worker.
+     */
+    public long[] getMessagesSent(){
+        long[] r = new long[threads];
+        for(int i=0; i<threads; i++) r[i] = workers[i].messages_sent;
+        return r;
+    }
+
+    /**
+     * @return messages received by each worker.
+     */
+    public long[] getMessagesReceived(){
+        long[] r = new long[threads];
+        for(int i=0; i<threads; i++) r[i] = workers[i].messages_received;
+        return r;
+    }
+
+    /**
+     * Prints per thread expansions and message counts.
+     */
+    public void printStats(){
+        for(int i=0; i<threads; i++){
+            System.out.println("Thread " + i + ": expanded " + workers[i].expanded +
+                    ", sent " + workers[i].messages_sent +
+                    ", received " + workers[i].messages_received);
+        }
+    }
+}
@@ -0,0 +1,439 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ParallelIDAStar class runs IDA* on a fork/join pool for boards of any size.
+ * Root is expanded breadth first until a level has enough nodes, every node of that level
+ * is the root of one subtree (a distinct move prefix). Each f bound iteration searches
+ * all subtrees as fork/join tasks, idle threads steal ranges of subtrees from busy ones.
+ * Next bound starts only after every subtree of the current bound is done, so the first
+ * solution is optimal. When a subtree finds the goal, subtrees after it (in level order)
+ * are cancelled and the ones before it still finish; solution is the one of the first
+ * subtree that has one, the same answer a single thread gives.
+ * Heuristic is Manhattan distance, moves come from a SuccessorGenerator as in Search.IDAStar().
+ * With a perimeter (see setPerimeter()) a perimeter state ends its branch as in Search.IDAStar(),
+ * one met while splitting is kept as a subtree of its own.
+ * @author VedFI
+ */
+public class ParallelIDAStar {
+    private static final int CHECK_INTERVAL = 1 << 10;   //expansions between cancellation checks
+
+    private Node root;
+    private State goal;
+    private int threads,subtrees;
+    private SuccessorGenerator gen;
+    private int cells;
+    private int[] start_tiles,dist;
+    private GoalPerimeter perimeter;
+
+    //subtree roots, in level order
+    private int split_depth;
+    private int[][] prefixes;           //moves from root
+    private int[][] prefix_f;           //f of every node on the prefix, subtree root last
+    private int[] fsm,blank,h;
+
+    private final AtomicInteger found = new AtomicInteger(Integer.MAX_VALUE);    //first subtree with solution
+    private final LongAdder expanded = new LongAdder(), generated = new LongAdder();
+    private volatile int[] solution;
+    private int iterations;
+
+    /**
+     * @param threads: parallelism of the pool.
+     * @param subtrees: root is split until a level has at least this many nodes.
+     * @param gen: move tables and pruning machine, see Search.setMovePruning().
+     */
+    public ParallelIDAStar(Node root, State goal, int threads, int subtrees, SuccessorGenerator gen){
+        if(threads < 1){
+            throw new IllegalArgumentException("threads: " + threads);
+        }
+        if(subtrees < 1){
+            throw new IllegalArgumentException("subtrees: " + subtrees);
+        }
+        this.root = root;
+        this.goal = goal;
+        this.threads = threads;
+        this.subtrees = subtrees;
+        this.gen = gen;
+        State s = root.getState();
+        int n = s.getGrid_size();
+        cells = n*n;
+        start_tiles = new int[cells];
+        dist = new int[cells*cells];
+        int[] goal_pos = new int[cells];
+        for(int i=0; i<cells; i++){
+            start_tiles[i] = s.getTile(i);
+            goal_pos[goal.getTile(i)] = i;
+        }
+        for(int t=1; t<cells; t++){
+            for(int i=0; i<cells; i++){
+                int gi = goal_pos[t];
+                dist[t*cells + i] = Math.abs(i/n - gi/n) + Math.abs(i%n - gi%n);
+            }
+        }
+    }
+
+    /**
+     * Ends branches on perimeter states with their exact distance, raises h of other states.
+     * Solution then ends on a perimeter state, see GoalPerimeter.pathToGoal(). Boards up to 4x4.
+     * @param perimeter: perimeter of goal, null for none.
+     */
+    public void setPerimeter(GoalPerimeter perimeter){
+        if(perimeter != null && !goal.isPacked()){
+            throw new IllegalArgumentException("perimeter supports boards up to 4x4");
+        }
+        this.perimeter = perimeter;
+    }
+
+    /**
+     * Runs the search on a new pool and shuts it down.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node search(){
+        int[] moves = split();
+        if(moves == null){
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try{
+                int bound = prefix_f[0][0];
+                while(bound != Integer.MAX_VALUE){
+                    iterations++;
+                    int next = pool.invoke(new Range(0, prefixes.length, bound));
+                    if(solution != null){
+                        moves = solution;
+                        break;
+                    }
+                    bound = next;
+                }
+            }
+            finally{
+                pool.shutdown();
+            }
+        }
+        if(moves == null){
+            return null;
+        }
+        Node node = root;
+        for(int m: moves){
+            node = node.slide(m);
+        }
+        return node;
+    }
+
+    /**
+     * Expands root level by level (pruned moves skipped) until a level has enough nodes.
+     * Perimeter states are not expanded, they are carried to the next level in place.
+     * @return moves to goal (or to a perimeter state) if it is found on the way, else null.
+     */
+    private int[] split(){
+        int[] tiles = new int[cells];
+        replay(new int[0], tiles);
+        int h0 = manhattan(tiles);
+        if(h0 == 0 || exact(tiles, h0) >= 0){
+            return new int[0];
+        }
+        ArrayList<int[]> level = new ArrayList<>();
+        level.add(new int[0]);
+        ArrayList<int[]> fs = new ArrayList<>();
+        fs.add(new int[]{raise(h0)});
+        int depth = 0;
+        while(level.size() < subtrees){
+            ArrayList<int[]> next_level = new ArrayList<>(level.size()*3);
+            ArrayList<int[]> next_fs = new ArrayList<>(level.size()*3);
+            int split_nodes = 0;
+            for(int k=0; k<level.size(); k++){
+                int[] prefix = level.get(k);
+                int[] f = fs.get(k);
+                int b = replay(prefix, tiles);
+                int ph = manhattan(tiles);
+                if(prefix.length < depth || exact(tiles, ph) >= 0){
+                    next_level.add(prefix);         //perimeter state, branch ends here
+                    next_fs.add(f);
+                    continue;
+                }
+                int state = fsmOf(prefix);
+                long key = (perimeter != null) ? pack(tiles) : 0;
+                for(int m=0; m<4; m++){
+                    int to = gen.target(b, m);
+                    if(to < 0 || gen.next(state, m) < 0){
+                        continue;
+                    }
+                    int t = tiles[to];
+                    int ch = ph + dist[t*cells + b] - dist[t*cells + to];
+                    int[] p = Arrays.copyOf(prefix, depth+1);
+                    p[depth] = m;
+                    if(ch == 0 && perimeter == null){
+                        return p;       //first goal of the shallowest level that has one
+                    }
+                    generated.increment();
+                    int e = (perimeter != null && ch <= perimeter.getDepth()) ?
+                            perimeter.distance(State.slidePacked(key, b, to)) : -1;
+                    int[] pf = Arrays.copyOf(f, depth+2);
+                    pf[depth+1] = depth + 1 + ((e >= 0) ? e : raise(ch));
+                    next_level.add(p);
+                    next_fs.add(pf);
+                }
+                split_nodes++;
+            }
+            expanded.add(split_nodes);
+            level = next_level;
+            fs = next_fs;
+            depth++;
+            if(split_nodes == 0){
+                break;          //every branch ended on the perimeter
+            }
+        }
+        split_depth = depth;
+        int count = level.size();
+        prefixes = level.toArray(new int[count][]);
+        prefix_f = fs.toArray(new int[count][]);
+        fsm = new int[count];
+        blank = new int[count];
+        h = new int[count];
+        for(int k=0; k<count; k++){
+            blank[k] = replay(prefixes[k], tiles);
+            fsm[k] = fsmOf(prefixes[k]);
+            h[k] = manhattan(tiles);
+        }
+        return null;
+    }
+
+    private int manhattan(int[] tiles){
+        int sum = 0;
+        for(int i=0; i<cells; i++){
+            sum += dist[tiles[i]*cells + i];
+        }
+        return sum;
+    }
+
+    private static long pack(int[] tiles){
+        long key = 0;
+        for(int i=0; i<tiles.length; i++){
+            key |= (long)tiles[i] << (i<<2);
+        }
+        return key;
+    }
+
+    /**
+     * @return exact distance of tiles to goal, -1 if there is no perimeter or tiles are outside it.
+     */
+    private int exact(int[] tiles, int h){
+        if(perimeter == null || h > perimeter.getDepth()){
+            return -1;          //h is admissible, states with h over perimeter depth are outside
+        }
+        return perimeter.distance(pack(tiles));
+    }
+
+    /**
+     * @return Manhattan distance h raised by the perimeter, see GoalPerimeter.boundManhattan().
+     */
+    private int raise(int h){
+        return (perimeter != null) ? perimeter.boundManhattan(h) : h;
+    }
+
+    /**
+     * Copies start tiles to tiles and makes the moves.
+     * @return agent cell after moves.
+     */
+    private int replay(int[] moves, int[] tiles){
+        System.arraycopy(start_tiles, 0, tiles, 0, cells);
+        int b = 0;
+        while(tiles[b] != 0) b++;
+        for(int m: moves){
+            int to = gen.target(b, m);
+            tiles[b] = tiles[to];
+            tiles[to] = 0;
+            b = to;
+        }
+        return b;
+    }
+
+    private int fsmOf(int[] moves){
+        int state = gen.start();
+        for(int m: moves){
+            state = gen.next(state, m);
+        }
+        return state;
+    }
+
+    /**
+     * Searches subtrees from to end (exclusive) with bound, splitting the range in halves.
+     * @return smallest f that exceeded bound, -1 if one of them found the goal.
+     */
+    private final class Range extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int from,to,bound;
+
+        Range(int from, int to, int bound){
+            this.from = from;
+            this.to = to;
+            this.bound = bound;
+        }
+
+        @Override
+        protected Integer compute(){
+            if(to - from > 1){
+                int mid = (from + to) >>> 1;
+                Range right = new Range(mid, to, bound);
+                right.fork();
+                int l = new Range(from, mid, bound).compute();
+                int r = right.join();
+                return (l == -1 || r == -1) ? -1 : Math.min(l, r);
+            }
+            if(from > found.get()){
+                return Integer.MAX_VALUE;       //cancelled, a solution comes before this subtree
+            }
+            return new Subtree(from, bound).search();
+        }
+    }
+
+    /**
+     * Depth first search of one subtree, same as Search.idaSearch() on its own tile array.
+     */
+    private final class Subtree {
+        private final int index,bound;
+        private final int[] tiles = new int[cells];
+        private final int[] path;
+        private int blank_cell,hv;
+        private long key;                   //packed state, kept only with a perimeter
+        private long nodes_expanded,nodes_generated;
+        private int countdown = CHECK_INTERVAL;
+        private boolean cancelled;
+
+        Subtree(int index, int bound){
+            this.index = index;
+            this.bound = bound;
+            path = new int[Math.max(bound, split_depth) + 1];
+        }
+
+        int search(){
+            //sequential IDA* would have cut the prefix at its first node over bound
+            int[] f = prefix_f[index];
+            int depth = prefixes[index].length;     //shorter than split_depth if it ends on the perimeter
+            for(int d=0; d<depth; d++){
+                if(f[d] > bound) return f[d];
+            }
+            replay(prefixes[index], tiles);
+            System.arraycopy(prefixes[index], 0, path, 0, depth);
+            blank_cell = blank[index];
+            hv = h[index];
+            key = (perimeter != null) ? pack(tiles) : 0;
+            int r = dfs(depth, fsm[index]);
+            expanded.add(nodes_expanded);
+            generated.add(nodes_generated);
+            if(r == -1){
+                return -1;
+            }
+            return cancelled ? Integer.MAX_VALUE : r;
+        }
+
+        private int dfs(int g, int state){
+            int hg = hv;
+            if(perimeter != null){
+                int e = (hg <= perimeter.getDepth()) ? perimeter.distance(key) : -1;
+                if(e >= 0){         //rest of path is known, see Search.IDAStar()
+                    if(g + e > bound){
+                        return g + e;
+                    }
+                    publish(g);
+                    return -1;
+                }
+                hg = perimeter.boundManhattan(hg);
+            }
+            int f = g + hg;
+            if(f > bound){
+                return f;
+            }
+            if(hg == 0){
+                publish(g);
+                return -1;
+            }
+            if(--countdown == 0){
+                countdown = CHECK_INTERVAL;
+                if(index > found.get()){
+                    cancelled = true;
+                    return Integer.MAX_VALUE;
+                }
+            }
+            nodes_expanded++;
+            int min = Integer.MAX_VALUE;
+            int from = blank_cell;
+            for(int m=0; m<4; m++){
+                int to = gen.target(from, m);
+                if(to < 0){
+                    continue;
+                }
+                int next = gen.next(state, m);
+                if(next < 0){
+                    continue;
+                }
+                nodes_generated++;
+                int t = tiles[to];
+                int dh = dist[t*cells + from] - dist[t*cells + to];
+                long k = key;
+                if(perimeter != null) key = State.slidePacked(k, from, to);
+                tiles[from] = t;            //make move
+                tiles[to] = 0;
+                blank_cell = to;
+                hv += dh;
+                path[g] = m;
+                int r = dfs(g+1, next);
+                hv -= dh;                   //unmake move
+                blank_cell = from;
+                key = k;
+                tiles[to] = t;
+                tiles[from] = 0;
+                if(r == -1){
+                    return -1;
+                }
+                if(cancelled){
+                    return Integer.MAX_VALUE;
+                }
+                if(r < min){
+                    min = r;
+                }
+            }
+            return min;
+        }
+
+        /**
+         * Keeps this solution if no subtree before this one has one.
+         */
+        private void publish(int depth){
+            synchronized(found){
+                if(index < found.get()){
+                    found.set(index);
+                    solution = Arrays.copyOf(path, depth);
+                }
+            }
+        }
+    }
+
+    public long getNodes_expanded(){
+        return expanded.sum();
+    }
+
+    public long getNodes_generated(){
+        return generated.sum();
+    }
+
+    /**
+     * @return number of subtrees searched in each iteration, 0 if goal was found while splitting.
+     */
+    public int getSubtrees(){
+        return (prefixes == null) ? 0 : prefixes.length;
+    }
+
+    public int getSplit_depth(){
+        return split_depth;
+    }
+
+    /**
+     * @return number of f bounds searched.
+     */
+    public int getIterations(){
+        return iterations;
+    }
+}
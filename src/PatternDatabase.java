@@ -0,0 +1,300 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * PatternDatabase class holds exact solution costs of one pattern (a subset of tiles).
+ * Only moves of pattern tiles are counted, so databases of disjoint patterns can be added.
+ * Table has one byte per placement of pattern tiles, indexed by rank of their cells.
+ * Tables are built by backward breadth first search from goal (see generate()),
+ * saved to a binary file and loaded back with a read only memory map,
+ * so solver processes share the same pages and do not read the file at startup.
+ *
+ * File layout (big endian):
+ *      int magic, int grid_size, int k, int goal blank cell,
+ *      k x (int tile, int goal cell), table bytes.
+ * @author VedFI
+ */
+public class PatternDatabase {
+    private static final int MAGIC = 0x4E504442;        //"NPDB"
+    private static final int UNSET = 0xFF;
+
+    private int grid_size,cells;
+    private int[] tiles;
+    private int[] goal_cells;
+    private int goal_blank;
+    private long[] factors;         //factors[i] = P(cells-1-i, k-1-i)
+    private ByteBuffer table;
+    private int offset;             //table start inside buffer
+
+    private PatternDatabase(int grid_size, int[] tiles, int[] goal_cells, int goal_blank){
+        this.grid_size = grid_size;
+        this.cells = grid_size*grid_size;
+        this.tiles = tiles;
+        this.goal_cells = goal_cells;
+        this.goal_blank = goal_blank;
+        int k = tiles.length;
+        factors = new long[k];
+        for(int i=0; i<k; i++){
+            long f = 1;
+            for(int j=i+1; j<k; j++){
+                f *= cells-j;
+            }
+            factors[i] = f;
+        }
+    }
+
+    /**
+     * @return number of placements of k tiles on the board, P(cells, k).
+     */
+    public long size(){
+        return factors[0]*cells;
+    }
+
+    /**
+     * Ranks the cells of pattern tiles (in order of tiles array) as a k-permutation.
+     * @param cell_of_tile: cell index of each tile value.
+     */
+    public int index(int[] cell_of_tile){
+        long r = 0;
+        int k = tiles.length;
+        for(int i=0; i<k; i++){
+            int c = cell_of_tile[tiles[i]];
+            int smaller = 0;
+            for(int j=0; j<i; j++){
+                if(cell_of_tile[tiles[j]] < c){
+                    smaller++;
+                }
+            }
+            r += (c - smaller)*factors[i];
+        }
+        return (int)r;
+    }
+
+    /**
+     * @param cell_of_tile: cell index of each tile value.
+     * @return number of pattern tile moves needed to reach goal.
+     */
+    public int lookup(int[] cell_of_tile){
+        return table.get(offset + index(cell_of_tile)) & 0xFF;
+    }
+
+    public int[] getTiles() {
+        return tiles;
+    }
+
+    public int getGrid_size() {
+        return grid_size;
+    }
+
+    /**
+     * Builds the table by breadth first search backwards from goal.
+     * Search state is the cells of the pattern tiles plus the agent cell.
+     * Agent moves through non pattern cells cost nothing and are flood filled
+     * inside the current layer, moving a pattern tile costs one and goes to next layer.
+     * Memory: one byte per table entry plus one bit per (entry, agent cell).
+     * @param tiles: pattern tiles, at most 8, agent (0) not included.
+     */
+    public static PatternDatabase generate(State goal, int[] tiles){
+        int n = goal.getGrid_size(), cells = n*n, k = tiles.length;
+        if(k > 8 || cells > 32){
+            throw new IllegalArgumentException("patterns are limited to 8 tiles on boards up to 5x5");
+        }
+        int[] goal_cells = new int[k];
+        for(int i=0; i<cells; i++){
+            for(int j=0; j<k; j++){
+                if(goal.getTile(i) == tiles[j]){
+                    goal_cells[j] = i;
+                }
+            }
+        }
+        PatternDatabase pdb = new PatternDatabase(n, tiles.clone(), goal_cells, goal.getBlank());
+        long entries = pdb.size();
+        if(entries > Integer.MAX_VALUE - 8){
+            throw new IllegalArgumentException("pattern table too large: " + entries);
+        }
+        byte[] table = new byte[(int)entries];
+        Arrays.fill(table, (byte)UNSET);
+        long[] visited = new long[(int)((entries*cells + 63) >>> 6)];
+
+        //queue entries pack 5 bits per cell: k tile cells followed by agent cell
+        LongList layer = new LongList(), next = new LongList();
+        layer.add(pack(goal_cells, goal.getBlank()));
+        int[] cell_of_tile = new int[cells];
+        int[] pos = new int[k];
+        int[] stack = new int[cells];
+        boolean[] occupied = new boolean[cells];
+        for(int depth=0; layer.size() > 0; depth++){
+            for(int q=0; q<layer.size(); q++){
+                long code = layer.get(q);
+                for(int j=0; j<k; j++){
+                    pos[j] = (int)((code >>> (5*j)) & 31);
+                    cell_of_tile[tiles[j]] = pos[j];
+                    occupied[pos[j]] = true;
+                }
+                int start = (int)((code >>> (5*k)) & 31);
+                long rank = pdb.index(cell_of_tile);
+                if(!testAndSet(visited, rank*cells + start)){
+                    if((table[(int)rank] & 0xFF) == UNSET){
+                        table[(int)rank] = (byte)depth;
+                    }
+                    int top = 0;
+                    stack[top++] = start;
+                    while(top > 0){
+                        int b = stack[--top];
+                        for(int m=0; m<4; m++){
+                            int c = neighbour(b, m, n);
+                            if(c < 0){
+                                continue;
+                            }
+                            if(occupied[c]){
+                                int j = 0;
+                                while(pos[j] != c) j++;
+                                pos[j] = b;
+                                next.add(pack(pos, c));
+                                pos[j] = c;
+                            }
+                            else if(!testAndSet(visited, rank*cells + c)){
+                                stack[top++] = c;
+                            }
+                        }
+                    }
+                }
+                for(int j=0; j<k; j++){
+                    occupied[pos[j]] = false;
+                }
+            }
+            LongList t = layer;
+            layer = next;
+            next = t;
+            next.clear();
+        }
+        pdb.table = ByteBuffer.wrap(table);
+        return pdb;
+    }
+
+    private static int neighbour(int cell, int move, int n){
+        switch (move){
+            case State.LEFT:  return (cell%n != 0) ? cell-1 : -1;
+            case State.RIGHT: return (cell%n != n-1) ? cell+1 : -1;
+            case State.UP:    return (cell >= n) ? cell-n : -1;
+            default:          return (cell < n*(n-1)) ? cell+n : -1;
+        }
+    }
+
+    private static long pack(int[] pos, int blank){
+        long code = 0;
+        for(int j=0; j<pos.length; j++){
+            code |= (long)pos[j] << (5*j);
+        }
+        return code | (long)blank << (5*pos.length);
+    }
+
+    /**
+     * Sets bit i.
+     * @return previous value of bit i.
+     */
+    private static boolean testAndSet(long[] bits, long i){
+        int w = (int)(i >>> 6);
+        long b = 1L << i;
+        boolean was = (bits[w] & b) != 0;
+        bits[w] |= b;
+        return was;
+    }
+
+    /**
+     * Writes header and table to file, replacing it if exists.
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer header = header();
+        ByteBuffer body = table.duplicate();
+        body.position(offset);
+        try(FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            while(header.hasRemaining()) ch.write(header);
+            while(body.hasRemaining()) ch.write(body);
+        }
+    }
+
+    private ByteBuffer header(){
+        ByteBuffer h = ByteBuffer.allocate(16 + 8*tiles.length).order(ByteOrder.BIG_ENDIAN);
+        h.putInt(MAGIC).putInt(grid_size).putInt(tiles.length).putInt(goal_blank);
+        for(int j=0; j<tiles.length; j++){
+            h.putInt(tiles[j]).putInt(goal_cells[j]);
+        }
+        h.flip();
+        return h;
+    }
+
+    /**
+     * Maps a file written by save() read only.
+     * @throws IOException if file is not a pattern database.
+     */
+    public static PatternDatabase load(Path file) throws IOException {
+        try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)){
+            ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if(map.remaining() < 16 || map.getInt(0) != MAGIC){
+                throw new IOException("not a pattern database: " + file);
+            }
+            int n = map.getInt(4), k = map.getInt(8);
+            int[] tiles = new int[k], goal_cells = new int[k];
+            for(int j=0; j<k; j++){
+                tiles[j] = map.getInt(16 + 8*j);
+                goal_cells[j] = map.getInt(20 + 8*j);
+            }
+            PatternDatabase pdb = new PatternDatabase(n, tiles, goal_cells, map.getInt(12));
+            pdb.offset = 16 + 8*k;
+            if(map.capacity() - pdb.offset != pdb.size()){
+                throw new IOException("truncated pattern database: " + file);
+            }
+            pdb.table = map;
+            return pdb;
+        }
+    }
+
+    /**
+     * @return true if table was built for given goal state.
+     */
+    public boolean matches(State goal){
+        if(goal.getGrid_size() != grid_size || goal.getBlank() != goal_blank){
+            return false;
+        }
+        for(int j=0; j<tiles.length; j++){
+            if(goal.getTile(goal_cells[j]) != tiles[j]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Growable list of longs used as breadth first search layers.
+     */
+    private static class LongList {
+        private long[] data = new long[1024];
+        private int size;
+
+        void add(long v){
+            if(size == data.length){
+                data = Arrays.copyOf(data, size << 1);
+            }
+            data[size++] = v;
+        }
+
+        long get(int i){
+            return data[i];
+        }
+
+        int size(){
+            return size;
+        }
+
+        void clear(){
+            size = 0;
+        }
+    }
+}
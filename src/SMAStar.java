@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * SMAStar class is simplified memory bounded A* with a hard limit on stored nodes.
+ * Search tree is kept in memory as long as it fits. When it is full, the leaf with the
+ * highest f (shallowest among those) is dropped and its f is remembered by its parent,
+ * so the parent is expanded again only when that subtree becomes the best choice.
+ * f values of parents are backed up from their children (and forgotten ones),
+ * children get at least their parent's f (pathmax).
+ * Returned solution is optimal if it fits in the limit (depth + 1 nodes) and heuristic is admissible.
+ * Heuristic is the one selected on the Search object (see Search.setHeuristic()).
+ * @author VedFI
+ */
+public class SMAStar {
+    /**
+     * Approximate heap bytes of one stored node (entry, state and child list), see nodesFor().
+     */
+    public static final int BYTES_PER_NODE = 160;
+    private static final int INF = Integer.MAX_VALUE;
+
+    private Search search;
+    private Node root;
+    private State goal;
+    private int max_nodes;
+    private long nodes_expanded,nodes_dropped;
+    private int peak_nodes;
+    private long next_id;
+
+    private static final class Entry {
+        final State state;
+        final Entry parent;
+        final int g,h,move;
+        final long id;
+        int f;
+        int forgotten = INF;                //smallest f of dropped children
+        boolean expanded;
+        final ArrayList<Entry> children = new ArrayList<>(2);
+
+        Entry(State state, Entry parent, int g, int h, int f, int move, long id){
+            this.state = state;
+            this.parent = parent;
+            this.g = g;
+            this.h = h;
+            this.f = f;
+            this.move = move;
+            this.id = id;
+        }
+    }
+
+    //smallest f first, deeper first among equal f
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        if(a.f != b.f) return Integer.compare(a.f, b.f);
+        if(a.g != b.g) return Integer.compare(b.g, a.g);
+        return Long.compare(a.id, b.id);
+    };
+
+    private final TreeSet<Entry> open = new TreeSet<>(ORDER);      //every stored node
+    private final TreeSet<Entry> leaves = new TreeSet<>(ORDER);    //stored nodes without stored children
+
+    /**
+     * @param search: supplies the heuristic.
+     * @param max_nodes: hard limit of stored nodes, at least 2.
+     */
+    public SMAStar(Search search, Node root, State goal, int max_nodes){
+        if(max_nodes < 2){
+            throw new IllegalArgumentException("max_nodes: " + max_nodes);
+        }
+        this.search = search;
+        this.root = root;
+        this.goal = goal;
+        this.max_nodes = max_nodes;
+    }
+
+    /**
+     * @return node limit that keeps stored nodes under bytes.
+     */
+    public static int nodesFor(long bytes){
+        return (int)Math.max(2, Math.min(Integer.MAX_VALUE, bytes/BYTES_PER_NODE));
+    }
+
+    /**
+     * @return Node if a solution found. Else returns null
+     * (no solution, or none that fits in the node limit).
+     */
+    public Node search(){
+        State s = root.getState();
+        int h = search.estimate(null, s, -1, 0);
+        Entry start = new Entry(s, null, 0, h, h, -1, next_id++);
+        open.add(start);
+        leaves.add(start);
+        while(!open.isEmpty()){
+            Entry b = open.first();
+            if(b.f == INF){
+                return null;
+            }
+            if(b.state.isGoal(goal)){
+                return toNode(b);
+            }
+            expand(b);
+            while(open.size() > max_nodes){
+                Entry w = leaves.last();
+                if(w == start){
+                    break;
+                }
+                drop(w);
+            }
+            peak_nodes = Math.max(peak_nodes, open.size());
+        }
+        return null;
+    }
+
+    /**
+     * Generates children of b that are not stored (all of them on first expansion).
+     */
+    private void expand(Entry b){
+        int stored = 0;
+        for(Entry c: b.children){
+            stored |= 1 << c.move;
+        }
+        for(int m=0; m<4; m++){
+            if(m == (b.move^1) || (stored & 1 << m) != 0 || !b.state.canMove(m)){
+                continue;
+            }
+            State cs = b.state.slide(m);
+            int g = b.g + 1;
+            int h = search.estimate(b.state, cs, m, b.h);
+            int f = Math.max(b.f, g + h);
+            if(!cs.isGoal(goal) && g >= max_nodes-1){
+                f = INF;                    //no room below for a path to goal
+            }
+            Entry c = new Entry(cs, b, g, h, f, m, next_id++);
+            b.children.add(c);
+            open.add(c);
+            leaves.add(c);
+        }
+        if(!b.children.isEmpty()){
+            leaves.remove(b);
+        }
+        b.forgotten = INF;
+        b.expanded = true;
+        nodes_expanded++;
+        backup(b);
+    }
+
+    /**
+     * Removes leaf w, its parent remembers w's f.
+     */
+    private void drop(Entry w){
+        open.remove(w);
+        leaves.remove(w);
+        Entry p = w.parent;
+        p.children.remove(w);
+        p.forgotten = Math.min(p.forgotten, w.f);
+        backup(p);
+        if(p.children.isEmpty()){
+            leaves.add(p);
+        }
+        nodes_dropped++;
+    }
+
+    /**
+     * Sets f of e to the smallest f of its stored and forgotten children, then of its ancestors.
+     */
+    private void backup(Entry e){
+        while(e != null && e.expanded){
+            int f = e.forgotten;
+            for(Entry c: e.children){
+                f = Math.min(f, c.f);
+            }
+            if(f == e.f){
+                return;
+            }
+            boolean leaf = leaves.remove(e);
+            open.remove(e);
+            e.f = f;
+            open.add(e);
+            if(leaf){
+                leaves.add(e);
+            }
+            e = e.parent;
+        }
+    }
+
+    private Node toNode(Entry e){
+        int[] moves = new int[e.g];
+        for(Entry x = e; x.parent != null; x = x.parent){
+            moves[x.g-1] = x.move;
+        }
+        Node node = root;
+        for(int m: moves){
+            node = node.slide(m);
+        }
+        return node;
+    }
+
+    public long getNodes_expanded() {
+        return nodes_expanded;
+    }
+
+    /**
+     * @return number of leaves dropped to stay in the limit.
+     */
+    public long getNodes_dropped() {
+        return nodes_dropped;
+    }
+
+    public int getPeak_nodes() {
+        return peak_nodes;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * ScalarBatchHeuristic class is the fallback of BatchHeuristic.
+ * One table lookup per cell: tile distances are precomputed per cell, so there is no division.
+ * @author VedFI
+ */
+public class ScalarBatchHeuristic implements BatchHeuristic {
+    private final int cells;
+    private final byte[] dist;          //cell*16 + tile -> distance of tile to its goal cell
+
+    public ScalarBatchHeuristic(int grid_size){
+        int n = grid_size;
+        cells = n*n;
+        dist = new byte[cells*16];
+        for(int i=0; i<cells; i++){
+            for(int t=0; t<cells; t++){
+                dist[i*16 + t] = (byte)(Math.abs(i/n - t/n) + Math.abs(i%n - t%n));
+            }
+        }
+    }
+
+    @Override
+    public void h1(long[] states, int count, int[] out){
+        for(int k=0; k<count; k++){
+            long p = states[k];
+            int h = 0;
+            for(int i=0; i<cells; i++, p >>>= 4){
+                h += dist[i*16 + (int)(p & 0xF)];
+            }
+            out[k] = h;
+        }
+    }
+
+    @Override
+    public void h2(long[] states, int count, int[] out){
+        for(int k=0; k<count; k++){
+            long p = states[k];
+            int h = 0;
+            for(int i=0; i<cells; i++, p >>>= 4){
+                if((p & 0xF) != i){
+                    h++;
+                }
+            }
+            out[k] = h;
+        }
+    }
+
+    @Override
+    public boolean isVectorized(){
+        return false;
+    }
+}
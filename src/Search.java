@@ -1,56 +1,1122 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 /**
  * Search class provides methods for;
  * A* Search,Iterative Deepening Search, Depth First Search and Breadth First Search algorithms.
  * Search objects has fields for Root Node, Goal State and Number of Expanded nodes.
+ * A* and BFS can optionally detect duplicate states (see setDuplicateDetection()).
+ * On boards up to 4x4 A* and BFS keep nodes in a NodeArena and refer to them by index,
+ * Node objects are created only for the returned path.
+ * IDA*, A* and BFS on boards up to 4x4 can finish early on a GoalPerimeter table (see setPerimeter()).
+ * Every search fills a SearchStats object (see getStats()), which can also be watched
+ * while running through a SearchListener or JMX. Nothing is printed while searching.
  * @author VedFI
  */
 public class Search {
+    /**
+     * Heuristic functions A* can use, see setHeuristic().
+     */
+    public enum Heuristic { H1, H2, H3, H4, LINEAR_CONFLICT, WALKING_DISTANCE, PATTERN_DATABASE }
+
     private Node root;
     private State goal;
-    private int nodes_expanded;
+    private long nodes_expanded,nodes_generated;
+    private long base_matches,base_collisions;  //Zobrist counters when search began
+    private boolean verbose = true;
+    private SearchStats stats;
+    private SearchListener listener;
+    private SearchMonitor monitor;
+    private ObjectName monitor_name;
+    private int progress_interval = 1 << 16;
+    private int countdown = Integer.MAX_VALUE;    //expansions until next progress() call
+    private boolean detailed;
+    private long time_limit;
+    private SolutionCache cache;
+    private boolean solvable;
+    private BucketQueue<Node> open_list;    //kept between AStar() calls
+    private IntBucketQueue arena_open;
+    private NodeArena arena;
+    private LongIntMap closed,open_g;      //packed state -> smallest depth seen
+    private HashMap<State,Integer> closed_states,open_states;     //same for larger boards, Zobrist hashed
+    private Heuristic heuristic = Heuristic.H1;
+    private AdditivePatternDatabase pdb;
+    private LinearConflict lc;
+    private WalkingDistance wd;
+    private int pruning_length;             //learned move pruning of IDA*, 0 for inverse moves only
+    private int batch_size = 1;             //nodes expanded per heuristic batch in A*
+    private BatchHeuristic batch;
+    private int batch_grid;                 //board size batch was created for
+    private int perimeter_depth;
 
     public Search(Node root, State goal){
         this.root = root;
         this.goal = goal;
         nodes_expanded = 0;
+        solvable = root.getState().canReach(goal);
+    }
+
+    /**
+     * Prepares this object for another puzzle.
+     * Allocated tables (duplicate detection, IDA* arrays) are kept and reused.
+     */
+    public void reset(Node root, State goal){
+        boolean same_goal = goal.equals(this.goal);
+        this.root = root;
+        this.goal = goal;
+        nodes_expanded = 0;
+        solvable = root.getState().canReach(goal);
+        if(closed != null){
+            closed.clear();
+            open_g.clear();
+            closed_states.clear();
+            open_states.clear();
+        }
+        if(!same_goal){
+            lc = null;
+            wd = null;
+            if(heuristic != Heuristic.PATTERN_DATABASE){
+                setHeuristic(heuristic);
+            }
+        }
+    }
+
+    /**
+     * Turns result printing on or off. Default is on.
+     * Results are printed once, after search ends.
+     */
+    public void setVerbose(boolean verbose){
+        this.verbose = verbose;
+    }
+
+    /**
+     * Sets listener that receives stats every interval expansions and at the end of each search.
+     * Null removes the listener. Without a listener (or JMX monitor) search loops only pay a counter decrement.
+     * @param interval: expansions between two progress() calls, also used for JMX updates.
+     */
+    public void setListener(SearchListener listener, int interval){
+        if(interval < 1){
+            throw new IllegalArgumentException("interval: " + interval);
+        }
+        this.listener = listener;
+        progress_interval = interval;
+    }
+
+    /**
+     * Limits running time of WeightedAStar() and ARAStar(), which then return the best solution found.
+     * @param millis: limit of each call, 0 for none (default).
+     */
+    public void setTimeLimit(long millis){
+        time_limit = millis;
+    }
+
+    /**
+     * Makes AStar(), IDAStar() and BFS() return cached solutions without searching,
+     * and store the ones they find. A* stores only with LINEAR_CONFLICT, WALKING_DISTANCE or
+     * PATTERN_DATABASE, other heuristics may overestimate so its solutions are not always optimal.
+     * Null removes the cache.
+     */
+    public void setSolutionCache(SolutionCache cache){
+        this.cache = cache;
+    }
+
+    /**
+     * @return cached solution of root as a search result, null on miss.
+     */
+    private Node cached(String algorithm){
+        if(cache == null){
+            return null;
+        }
+        int[] moves;
+        try{
+            moves = cache.get(root.getState(), goal);
+        }
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        if(moves == null){
+            return null;
+        }
+        begin(algorithm + " (cached)");
+        Node node = root;
+        for(int m: moves){
+            node = node.slide(m);
+        }
+        return finish(node, 0);
+    }
+
+    /**
+     * Stores solution n of root in cache.
+     * @return n
+     */
+    private Node remember(Node n){
+        if(cache != null && n != null){
+            try{
+                cache.put(root.getState(), goal, n.getMoves());
+            }
+            catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return true if heuristic never overestimates, so A* paths are optimal and may be cached.
+     */
+    boolean admissible(){
+        return heuristic == Heuristic.LINEAR_CONFLICT || heuristic == Heuristic.WALKING_DISTANCE ||
+                heuristic == Heuristic.PATTERN_DATABASE;
+    }
+
+    /**
+     * Enables heuristic timing, peak memory sampling and f layer histogram. Default is off.
+     * Heuristic timing reads the clock twice per generated node of A*.
+     */
+    public void setDetailedStats(boolean detailed){
+        this.detailed = detailed;
+    }
+
+    /**
+     * Registers a JMX MBean showing stats of the current (or last) search of this object.
+     * @param name: object name, e.g. "npuzzle:type=Search,name=worker-1".
+     * @throws IllegalStateException if name is malformed or already registered.
+     */
+    public void registerMBean(String name){
+        try{
+            monitor_name = new ObjectName(name);
+            monitor = new SearchMonitor();
+            if(stats != null){
+                monitor.setCurrent(stats);
+            }
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new StandardMBean(monitor, SearchStatsMBean.class), monitor_name);
+        }
+        catch (JMException e){
+            monitor = null;
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Removes MBean registered by registerMBean(), if any.
+     */
+    public void unregisterMBean(){
+        if(monitor == null){
+            return;
+        }
+        try{
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(monitor_name);
+        }
+        catch (JMException e){
+            //already removed
+        }
+        monitor = null;
+    }
+
+    /**
+     * Starts stats of a new search.
+     * @return false if goal is unreachable from root, search must end at once.
+     */
+    private boolean begin(String algorithm){
+        nodes_expanded = 0;
+        nodes_generated = 0;
+        stats = new SearchStats(algorithm);
+        base_matches = Zobrist.getMatches();
+        base_collisions = Zobrist.getCollisions();
+        if(monitor != null){
+            monitor.setCurrent(stats);
+        }
+        countdown = (listener != null || monitor != null) ? progress_interval : Integer.MAX_VALUE;
+        return solvable;
+    }
+
+    /**
+     * Called when countdown reaches 0, publishes counters.
+     */
+    private void progress(int frontier){
+        stats.update(nodes_expanded, nodes_generated, frontier, closedSize());
+        stats.setHashes(Zobrist.getMatches() - base_matches, Zobrist.getCollisions() - base_collisions);
+        if(detailed){
+            stats.sampleMemory();
+        }
+        if(listener != null){
+            listener.progress(stats);
+        }
+        countdown = (listener != null || monitor != null) ? progress_interval : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Ends stats of current search and prints them if verbose.
+     * @return n
+     */
+    private Node finish(Node n, int frontier){
+        stats.update(nodes_expanded, nodes_generated, frontier, closedSize());
+        stats.setHashes(Zobrist.getMatches() - base_matches, Zobrist.getCollisions() - base_collisions);
+        if(detailed){
+            stats.sampleMemory();
+        }
+        stats.finish(n);
+        if(listener != null){
+            listener.finished(stats);
+        }
+        if(verbose){
+            System.out.println(stats);
+        }
+        return n;
+    }
+
+    /**
+     * Enables closed set and open list "best depth seen" map for A* and BFS.
+     * Boards up to 4x4 are keyed on State.getPacked(), larger boards on State objects
+     * whose hashCode() and equals() use the Zobrist hash (full comparison only on equal hashes,
+     * counted in SearchStats.getHashMatches() and getHashCollisions()).
+     * A state is expanded again only if it is reached with a smaller depth,
+     * which keeps A* correct with inconsistent heuristics (h3, h4).
+     * @param capacity: expected number of states, tables grow beyond it.
+     * @param load_factor: fill ratio in (0,1) that triggers growing.
+     */
+    public void setDuplicateDetection(int capacity, float load_factor){
+        closed = new LongIntMap(capacity, load_factor);
+        open_g = new LongIntMap(capacity, load_factor);
+        //HashMap allocates its table on first put, unused on boards up to 4x4
+        int table = (int)Math.min(1 << 30, (long)Math.ceil(capacity/(double)load_factor));
+        closed_states = new HashMap<>(table, load_factor);
+        open_states = new HashMap<>(table, load_factor);
+    }
+
+    private int closedSize(){
+        return (closed == null) ? 0 : closed.size() + closed_states.size();
+    }
+
+    /**
+     * Marks state closed.
+     * @return false if state has already been expanded with a smaller or equal depth.
+     */
+    private boolean close(long key, int depth){
+        int g = closed.get(key, -1);
+        if(g != -1 && g <= depth){
+            return false;
+        }
+        closed.put(key, depth);
+        return true;
+    }
+
+    /**
+     * Records child state in open list map.
+     * @return false if state has already been seen with a smaller or equal depth.
+     */
+    private boolean open(long key, int depth){
+        int g = closed.get(key, -1);
+        if(g != -1 && g <= depth){
+            return false;
+        }
+        g = open_g.get(key, -1);
+        if(g != -1 && g <= depth){
+            return false;
+        }
+        open_g.put(key, depth);
+        return true;
+    }
+
+    /**
+     * close() for boards larger than 4x4.
+     */
+    private boolean close(State s, int depth){
+        Integer g = closed_states.get(s);
+        if(g != null && g <= depth){
+            return false;
+        }
+        closed_states.put(s, depth);
+        return true;
+    }
+
+    /**
+     * open() for boards larger than 4x4.
+     */
+    private boolean open(State s, int depth){
+        Integer g = closed_states.get(s);
+        if(g != null && g <= depth){
+            return false;
+        }
+        g = open_states.get(s);
+        if(g != null && g <= depth){
+            return false;
+        }
+        open_states.put(s, depth);
+        return true;
+    }
+
+    /**
+     * Makes IDA* prune move sequences that lead to states reached by shorter
+     * or lexicographically smaller sequences, see SuccessorGenerator.learned().
+     * Other searches prune the inverse of the last move only.
+     * @param max_length: longest pruned sequence, 0 for inverse moves only.
+     */
+    public void setMovePruning(int max_length){
+        pruning_length = max_length;
+    }
+
+    /**
+     * Makes A* expand up to batch_size nodes of the smallest f at a time and score all of
+     * their children in one BatchHeuristic call (vector lanes if available).
+     * Used with H1 and H2 on boards up to 4x4, other heuristics score children one by one.
+     * @param batch_size: nodes per batch, 1 for one node at a time.
+     */
+    public void setBatchSize(int batch_size){
+        if(batch_size < 1){
+            throw new IllegalArgumentException("batch size: " + batch_size);
+        }
+        this.batch_size = batch_size;
+    }
+
+    /**
+     * Makes IDA*, parallel IDA*, A* and BFS on boards up to 4x4 use the shared GoalPerimeter table of goal
+     * (built on first use, see GoalPerimeter.get()). A search that reaches a perimeter state
+     * finishes with the rest of the path from the table, estimates of other states are raised
+     * to at least depth+1. Solutions stay optimal.
+     * @param depth: perimeter depth, 0 for no perimeter.
+     */
+    public void setPerimeter(int depth){
+        if(depth < 0){
+            throw new IllegalArgumentException("perimeter depth: " + depth);
+        }
+        perimeter_depth = depth;
+    }
+
+    /**
+     * @return perimeter table of goal, null if none set or board is larger than 4x4.
+     */
+    private GoalPerimeter perimeter(){
+        return (perimeter_depth > 0 && goal.isPacked()) ? GoalPerimeter.get(goal, perimeter_depth) : null;
+    }
+
+    /**
+     * Extends path n, which ends on a perimeter state, to goal.
+     */
+    private static Node toGoal(Node n, GoalPerimeter p){
+        for(int m: p.pathToGoal(n.getState().getPacked())){
+            n = n.slide(m);
+        }
+        return n;
+    }
+
+    /**
+     * @return move generator of IDA* for the root's board size.
+     */
+    private SuccessorGenerator generator(){
+        int n = root.getState().getGrid_size();
+        return (pruning_length > 0) ? SuccessorGenerator.learned(n, pruning_length) : SuccessorGenerator.get(n);
+    }
+
+    /**
+     * Prepares arena and its open list for a packed board search.
+     */
+    private NodeArena arena(){
+        int n = root.getState().getGrid_size();
+        if(arena == null || arena.getGrid_size() != n){
+            arena = new NodeArena(n, 1 << 12);
+            arena_open = new IntBucketQueue();
+        }
+        return arena;
+    }
+
+    /**
+     * Makes A* use pattern database heuristic instead of h1().
+     * Tables must be built for the same goal state.
+     */
+    public void setPatternDatabase(AdditivePatternDatabase pdb){
+        this.pdb = pdb;
+        heuristic = Heuristic.PATTERN_DATABASE;
+    }
+
+    /**
+     * Selects heuristic function of A*. Default is H1.
+     * PATTERN_DATABASE needs setPatternDatabase() to be called.
+     */
+    public void setHeuristic(Heuristic heuristic){
+        if(heuristic == Heuristic.PATTERN_DATABASE && pdb == null){
+            throw new IllegalStateException("no pattern database set");
+        }
+        if(heuristic == Heuristic.LINEAR_CONFLICT && lc == null){
+            lc = new LinearConflict(goal);
+        }
+        if(heuristic == Heuristic.WALKING_DISTANCE && wd == null){
+            wd = new WalkingDistance(goal);
+        }
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Calls selected heuristic function of node.
+     */
+    void evaluate(Node c){
+        switch (heuristic){
+            case H1: c.h1(); break;
+            case H2: c.h2(); break;
+            case H3: c.h3(); break;
+            case H4: c.h4(); break;
+            case LINEAR_CONFLICT: c.hLinearConflict(lc); break;
+            case WALKING_DISTANCE: c.hWalkingDistance(wd); break;
+            case PATTERN_DATABASE: c.hPDB(pdb); break;
+        }
+    }
+
+    /**
+     * Selected heuristic of a state without Node object, used by arena roots and SMAStar.java.
+     * Walking distance is computed from scratch here, arenaAStar() updates its table index instead.
+     * @param parent: state s was created from, null for root.
+     * @param parent_h: estimate of parent, for incremental heuristics.
+     */
+    int estimate(State parent, State s, int move, int parent_h){
+        switch (heuristic){
+            case H1: return Node.h1(s);
+            case H2: return Node.h2(s);
+            case H3: return Node.h3(s);
+            case H4: return Node.h4(s);
+            case LINEAR_CONFLICT: return (parent == null) ? lc.estimate(s) : lc.update(parent, s, move, parent_h);
+            case WALKING_DISTANCE: return wd.estimate(wd.index(s));
+            default: return pdb.estimate(s);
+        }
+    }
+
+    /**
+     * Selected heuristic of a child of a packed state, read from keys without State objects (arenaAStar()).
+     * H1 and H2 count the agent and assume the standard goal like Node.h1() and Node.h2(),
+     * only the terms of the moved tile and the agent change. H3 and H4 build a State.
+     * Walking distance is not handled here, arenaAStar() updates its table index.
+     * @param blank: agent cell of parent, where the moved tile goes.
+     * @param target: agent cell of child, where the moved tile was.
+     */
+    private int estimate(long parent, long key, int blank, int target, int parent_h, int n){
+        int t = State.tileOf(key, blank);
+        switch (heuristic){
+            case H1: return parent_h + manhattan(t, blank, n) - manhattan(t, target, n)
+                    + manhattan(0, target, n) - manhattan(0, blank, n);
+            case H2: return parent_h + ((t != blank) ? 1 : 0) - ((t != target) ? 1 : 0)
+                    + ((target != 0) ? 1 : 0) - ((blank != 0) ? 1 : 0);
+            case H3: return Node.h3(new State(n, key, target));
+            case H4: return Node.h4(new State(n, key, target));
+            case LINEAR_CONFLICT: return lc.update(parent, key, blank, target, parent_h);
+            default: return pdb.estimate(key);
+        }
+    }
+
+    /**
+     * @return moves of tile t standing on cell to its own cell (standard goal).
+     */
+    private static int manhattan(int t, int cell, int n){
+        return Math.abs(t/n - cell/n) + Math.abs(t%n - cell%n);
+    }
+
+    /**
+     * Heuristic call measured with System.nanoTime(), used when detailed stats are on.
+     */
+    private void evaluateTimed(Node c){
+        long t = System.nanoTime();
+        evaluate(c);
+        stats.addHeuristicNanos(System.nanoTime() - t);
+    }
+
+    /**
+     * Every search method returns null at once, without expanding a node,
+     * if goal is unreachable (see State.canReach()).
+     * @return true if goal can be reached from root.
+     */
+    public boolean isSolvable() {
+        return solvable;
+    }
+
+    public long getNodes_expanded() {
+        return nodes_expanded;
+    }
+
+    public long getNodes_generated() {
+        return nodes_generated;
     }
 
     /**
-     * Nodes stored in a priority queue (look for compareTo() method in Node.java)
+     * @return stats of the last search, null if none run yet.
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return bytes held by duplicate detection tables, 0 if disabled.
+     */
+    public long getDuplicateDetectionBytes(){
+        return (closed == null) ? 0 : closed.footprintBytes() + open_g.footprintBytes();
+    }
+
+    /**
+     * Nodes stored in a bucket queue by f and depth, popped in compareTo() order (see BucketQueue.java)
      * Child nodes add to queue right after their heuristic cost values calculated.
      * @return Node if a solution found. Else returns null.
      */
     public Node AStar(){
-        PriorityQueue<Node> nodes = new PriorityQueue<>();
+        Node hit = cached("A*");
+        if(hit != null){
+            return hit;
+        }
+        if(root.getState().isPacked()){
+            boolean batched = batch_size > 1 && (heuristic == Heuristic.H1 || heuristic == Heuristic.H2);
+            Node n = batched ? batchAStar() : arenaAStar();
+            return admissible() ? remember(n) : n;
+        }
+        if(open_list == null){
+            open_list = new BucketQueue<>();
+        }
+        BucketQueue<Node> nodes = open_list;
         ArrayList<Node> child;
-        nodes.add(root);
+        if(!begin("A*")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        boolean dd = closed != null;
+        evaluate(root);                 //base value for incremental heuristics
+        nodes.push(root, root.getH_cost(), 0);
+        if(dd) open(root.getState(), 0);
         try{
             while(!nodes.isEmpty()){
-                Node n = nodes.poll();
+                Node n = nodes.pop();
                 if(n.getState().isGoal(goal)){
-                    System.out.println("A* Found A Solution!" +
-                            "\nCost & Depth: " + n.getDepth() +
-                            "\nTotal Nodes Expanded: " + nodes_expanded);
-                    Thread.sleep(1000);
                     //n.printPath();
                     //n.printStepsOfPath();
-                    return n;
+                    return finish(n, nodes.size());
                 }
-                else{
+                else if(!dd || close(n.getState(), n.getDepth())){
                     child = n.move();
+                    nodes_generated += child.size();
                     for(Node c:child){
-                        c.h1();         //heuristic function called here, could be changed.
-                        nodes.add(c);
+                        if(dd && !open(c.getState(), c.getDepth())){
+                            continue;
+                        }
+                        //heuristic function called here, see setHeuristic().
+                        if(detailed) evaluateTimed(c); else evaluate(c);
+                        nodes.push(c, c.getH_cost(), c.getDepth());
                     }
                     nodes_expanded++;
+                    if(detailed) stats.countLayer(n.getH_cost());
+                    if(--countdown == 0) progress(nodes.size());
                 }
             }
         }
         catch (Exception e){
             e.printStackTrace();
         }
-        return null;
+        finally{
+            nodes.clear();              //drop node references, keep buckets
+        }
+        return finish(null, 0);
+    }
+
+    /**
+     * AStar() for packed boards. Open list holds arena indexes,
+     * each node keeps its estimate for incremental heuristics of its children
+     * (and its table index for walking distance, see NodeArena.setH_index()).
+     * Children are generated as packed keys, no State objects are created.
+     */
+    private Node arenaAStar(){
+        NodeArena nodes = arena();
+        IntBucketQueue open = arena_open;
+        State start = root.getState();
+        int n = start.getGrid_size();
+        long goal_key = goal.getPacked();
+        boolean dd = closed != null;
+        SuccessorGenerator gen = SuccessorGenerator.get(n);
+        GoalPerimeter p = perimeter();
+        if(!begin("A*")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        boolean indexed = heuristic == Heuristic.WALKING_DISTANCE;
+        int h0 = estimate(null, start, -1, 0);
+        int root_i = nodes.add(start.getPacked(), start.getBlank(), -1, 0, h0, 0);
+        if(indexed) nodes.setH_index(root_i, wd.index(start));
+        open.push(root_i, tighten(p, start.getPacked(), h0), 0);
+        if(dd) open(start.getPacked(), 0);
+        try{
+            while(!open.isEmpty()){
+                int i = open.pop();
+                long key = nodes.getPacked(i);
+                int g = nodes.getG(i), h = nodes.getH(i);
+                if(key == goal_key){
+                    return finish(nodes.toNode(i, root), open.size());
+                }
+                if(p != null && p.distance(key) >= 0){
+                    //f was exact and smallest, so the rest of path in the table is optimal
+                    return finish(toGoal(nodes.toNode(i, root), p), open.size());
+                }
+                if(dd && !close(key, g)){
+                    continue;       //stale entry, state expanded with smaller depth
+                }
+                int b = nodes.getBlank(i);
+                int back = (i == 0) ? -1 : nodes.getMove(i)^1;
+                for(int m=0; m<4; m++){
+                    int to = gen.target(b, m);
+                    if(m == back || to < 0){
+                        continue;
+                    }
+                    long c = State.slidePacked(key, b, to);
+                    nodes_generated++;
+                    if(dd && !open(c, g+1)){
+                        continue;
+                    }
+                    int ch, index = 0;
+                    long t = detailed ? System.nanoTime() : 0;
+                    if(indexed){
+                        index = wd.update(nodes.getH_index(i), m, State.tileOf(key, to));
+                        ch = wd.estimate(index);
+                    }
+                    else{
+                        ch = estimate(key, c, b, to, h, n);
+                    }
+                    if(detailed) stats.addHeuristicNanos(System.nanoTime() - t);
+                    //arena keeps plain estimate, base of incremental heuristics
+                    int ci = nodes.add(c, to, i, g+1, ch, m);
+                    if(indexed) nodes.setH_index(ci, index);
+                    open.push(ci, g+1+tighten(p, c, ch), g+1);
+                }
+                nodes_expanded++;
+                if(detailed) stats.countLayer(g+h);
+                if(--countdown == 0) progress(open.size());
+            }
+        }
+        finally{
+            open.clear();
+            nodes.clear();
+        }
+        return finish(null, 0);
+    }
+
+    /**
+     * arenaAStar() in batches, see setBatchSize(). Nodes of one batch share the smallest f,
+     * so expansion order is still A* order (ties broken differently).
+     * Children are generated as packed keys, no State objects are created.
+     */
+    private Node batchAStar(){
+        NodeArena nodes = arena();
+        IntBucketQueue open = arena_open;
+        State start = root.getState();
+        int n = start.getGrid_size();
+        long goal_key = goal.getPacked();
+        boolean dd = closed != null;
+        boolean h2 = heuristic == Heuristic.H2;
+        SuccessorGenerator gen = SuccessorGenerator.get(n);
+        GoalPerimeter p = perimeter();
+        if(batch == null || batch_grid != n){
+            batch = BatchHeuristic.create(n);
+            batch_grid = n;
+        }
+        int cap = batch_size*4;
+        long[] keys = new long[cap];
+        int[] blanks = new int[cap], parents = new int[cap], moves = new int[cap], hs = new int[cap];
+        if(!begin("A* (batch " + batch_size + (batch.isVectorized() ? ", vector" : "") + ")")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        int h0 = estimate(null, start, -1, 0);
+        open.push(nodes.add(start.getPacked(), start.getBlank(), -1, 0, h0, 0), tighten(p, start.getPacked(), h0), 0);
+        if(dd) open(start.getPacked(), 0);
+        try{
+            while(!open.isEmpty()){
+                int f = open.minF();
+                int count = 0;
+                for(int k=0; k<batch_size && !open.isEmpty() && open.minF() == f; k++){
+                    int i = open.pop();
+                    long key = nodes.getPacked(i);
+                    int g = nodes.getG(i);
+                    if(key == goal_key){
+                        return finish(nodes.toNode(i, root), open.size());
+                    }
+                    if(p != null && p.distance(key) >= 0){
+                        return finish(toGoal(nodes.toNode(i, root), p), open.size());
+                    }
+                    if(dd && !close(key, g)){
+                        continue;       //stale entry, state expanded with smaller depth
+                    }
+                    int b = nodes.getBlank(i);
+                    int back = (i == 0) ? -1 : nodes.getMove(i)^1;
+                    for(int m=0; m<4; m++){
+                        int to = gen.target(b, m);
+                        if(m == back || to < 0){
+                            continue;
+                        }
+                        long c = State.slidePacked(key, b, to);
+                        nodes_generated++;
+                        if(dd && !open(c, g+1)){
+                            continue;
+                        }
+                        keys[count] = c;
+                        blanks[count] = to;
+                        parents[count] = i;
+                        moves[count] = m;
+                        count++;
+                    }
+                    nodes_expanded++;
+                    if(detailed) stats.countLayer(f);
+                    if(--countdown == 0) progress(open.size());
+                }
+                long t = detailed ? System.nanoTime() : 0;
+                if(h2) batch.h2(keys, count, hs);
+                else batch.h1(keys, count, hs);
+                if(detailed) stats.addHeuristicNanos(System.nanoTime() - t);
+                for(int j=0; j<count; j++){
+                    int g = nodes.getG(parents[j]) + 1;
+                    open.push(nodes.add(keys[j], blanks[j], parents[j], g, hs[j], moves[j]), g + tighten(p, keys[j], hs[j]), g);
+                }
+            }
+        }
+        finally{
+            open.clear();
+            nodes.clear();
+        }
+        return finish(null, 0);
+    }
+
+    /**
+     * Estimate A* orders a packed state by: exact distance on the perimeter, else h raised by the perimeter.
+     */
+    private int tighten(GoalPerimeter p, long key, int h){
+        if(p == null){
+            return h;
+        }
+        int e = p.distance(key);
+        if(e >= 0){
+            return e;
+        }
+        return p.bound(h);
+    }
+
+    /**
+     * Iterative deepening A*. Depth first search bounded by f = depth + h,
+     * bound is raised to the smallest f that exceeded it until goal found.
+     * Agent is moved in place on a single tile array and moved back on backtrack,
+     * so no Node objects are created during search.
+     * Moves come from a SuccessorGenerator: the one reversing the parent's move is pruned,
+     * and longer duplicate sequences too if setMovePruning() was called.
+     * h is Manhattan distance of tiles (agent excluded), updated by one table lookup per move.
+     * With a perimeter (see setPerimeter()) the packed key is updated too, a perimeter state
+     * ends the branch with its exact distance and h of other states is raised by the perimeter.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node IDAStar(){
+        Node hit = cached("IDA*");
+        if(hit != null){
+            return hit;
+        }
+        if(!begin("IDA*")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        State s = root.getState();
+        int n = s.getGrid_size(), cells = n*n;
+        if(ida_tiles == null || ida_tiles.length != cells){
+            ida_tiles = new int[cells];
+            ida_dist = new int[cells*cells];
+            ida_goal_pos = new int[cells];
+        }
+        int[] goal_pos = ida_goal_pos;
+        for(int i=0; i<cells; i++){
+            ida_tiles[i] = s.getTile(i);
+            goal_pos[goal.getTile(i)] = i;
+        }
+        for(int t=1; t<cells; t++){
+            for(int i=0; i<cells; i++){
+                int gi = goal_pos[t];
+                ida_dist[t*cells + i] = Math.abs(i/n - gi/n) + Math.abs(i%n - gi%n);
+            }
+        }
+        ida_gen = generator();
+        ida_blank = s.getBlank();
+        ida_h = 0;
+        for(int i=0; i<cells; i++){
+            ida_h += ida_dist[ida_tiles[i]*cells + i];
+        }
+        ida_perimeter = perimeter();
+        int bound = ida_h;
+        if(ida_perimeter != null){
+            ida_key = s.getPacked();
+            int e = ida_perimeter.distance(ida_key);
+            bound = (e >= 0) ? e : ida_perimeter.boundManhattan(ida_h);
+        }
+        while(bound != Integer.MAX_VALUE){
+            if(ida_path == null || ida_path.length <= bound){
+                ida_path = new int[bound+1];
+            }
+            int next = idaSearch(0, bound, ida_gen.start());
+            if(next == -1){
+                break;
+            }
+            bound = next;
+        }
+        if(bound == Integer.MAX_VALUE){
+            return finish(null, 0);
+        }
+        Node node = root;
+        for(int d=0; d<ida_depth; d++){
+            node = node.slide(ida_path[d]);
+        }
+        if(ida_perimeter != null){
+            node = toGoal(node, ida_perimeter);
+        }
+        return finish(remember(node), node.getDepth());
+    }
+
+    /**
+     * IDA* on a fork/join pool, see ParallelIDAStar.java.
+     * Gives the same solution as IDAStar() for any number of threads, perimeter included
+     * (see setPerimeter()). Boards of any size.
+     * @param threads: parallelism of the pool.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node ParallelIDAStar(int threads){
+        Node hit = cached("Parallel IDA*");
+        if(hit != null){
+            return hit;
+        }
+        ParallelIDAStar pida = new ParallelIDAStar(root, goal, threads, 1 << 12, generator());
+        GoalPerimeter p = perimeter();
+        pida.setPerimeter(p);
+        if(!begin("Parallel IDA* (" + threads + " threads)")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = pida.search();
+        if(n != null && p != null){
+            n = toGoal(n, p);
+        }
+        nodes_expanded = pida.getNodes_expanded();
+        nodes_generated = pida.getNodes_generated();
+        if(verbose){
+            System.out.println("Subtrees: " + pida.getSubtrees() + " at depth " + pida.getSplit_depth() +
+                    ", Iterations: " + pida.getIterations());
+        }
+        return finish(remember(n), pida.getSubtrees());
+    }
+
+    /**
+     * Beam search scored by linear conflict, see BeamSearch.java. Boards of any size, not optimal.
+     * @param width: nodes kept per layer.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node BeamSearch(int width){
+        BeamSearch beam = new BeamSearch(root, goal, width, null);
+        if(!begin("Beam Search (width " + width + ")")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = beam.search();
+        nodes_expanded = beam.getNodes_expanded();
+        nodes_generated = beam.getNodes_generated();
+        return finish(n, width);
+    }
+
+    /**
+     * Real time LRTA* agent, see LRTAStar.java. Boards of any size, not optimal.
+     * @param step_micros: time budget of one move.
+     * @param table_size: learned h values kept.
+     * @return Node if goal reached. Else returns null.
+     */
+    public Node LRTAStar(long step_micros, int table_size){
+        LRTAStar agent = new LRTAStar(root, goal, step_micros, table_size);
+        if(!begin("LRTA* (" + step_micros + " us per move)")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = agent.search();
+        nodes_expanded = agent.getNodes_expanded();
+        if(verbose){
+            System.out.println("Moves Made: " + agent.getSteps() + ", Learned Values: " + agent.getLearned() +
+                    ", Deepest Lookahead: " + agent.getMax_lookahead());
+        }
+        return finish(n, 0);
+    }
+
+    /**
+     * Hash distributed parallel A*, see ParallelAStar.java.
+     * Uses pattern database if set, linear conflict otherwise. Boards up to 4x4.
+     * @param threads: number of worker threads.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node HDAStar(int threads){
+        ParallelAStar hda = new ParallelAStar(root, goal, threads, pdb);
+        if(!begin("HDA* (" + threads + " threads)")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = null;
+        try{
+            n = hda.search();
+            for(long e: hda.getExpanded()){
+                nodes_expanded += e;
+            }
+            if(verbose){
+                hda.printStats();
+            }
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        return finish(n, 0);
+    }
+
+    /**
+     * Breadth first search from root and goal at the same time, see BidirectionalSearch.java.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node BidirectionalBFS(){
+        BidirectionalSearch bs = new BidirectionalSearch(root, goal);
+        if(!begin("Bidirectional BFS")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = bs.BFS();
+        nodes_expanded = bs.getNodes_expanded();
+        return finish(n, 0);
+    }
+
+    /**
+     * MM heuristic search from root and goal at the same time, see BidirectionalSearch.java.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node MM(){
+        BidirectionalSearch bs = new BidirectionalSearch(root, goal);
+        if(!begin("MM")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = bs.MM();
+        nodes_expanded = bs.getNodes_expanded();
+        return finish(n, 0);
+    }
+
+    /**
+     * Memory bounded A* that never stores more than max_nodes nodes, see SMAStar.java.
+     * Uses selected heuristic (see setHeuristic()).
+     * @param max_nodes: node limit, SMAStar.nodesFor() converts a byte budget.
+     * @return Node if a solution found within the limit. Else returns null.
+     */
+    public Node SMAStar(int max_nodes){
+        SMAStar sma = new SMAStar(this, root, goal, max_nodes);
+        if(!begin("SMA* (" + max_nodes + " nodes)")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = sma.search();
+        nodes_expanded = sma.getNodes_expanded();
+        if(verbose){
+            System.out.println("Peak Stored Nodes: " + sma.getPeak_nodes() +
+                    ", Dropped Nodes: " + sma.getNodes_dropped());
+        }
+        return finish(n, sma.getPeak_nodes());
+    }
+
+    /**
+     * Weighted A*, nodes ordered by depth + w*h, see AnytimeAStar.java.
+     * Solution cost is at most w times optimal, bound is reported in getStats()
+     * (NaN with an inadmissible heuristic, e.g. the default H1).
+     * Stops at time limit (see setTimeLimit()).
+     * @param w: weight of heuristic, at least 1.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node WeightedAStar(double w){
+        AnytimeAStar wa = new AnytimeAStar(this, root, goal, listener);
+        wa.setTimeLimit(time_limit);
+        if(!begin("Weighted A* (w=" + w + ")")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = wa.weighted(w);
+        nodes_expanded = wa.getNodes_expanded();
+        stats.setBound(wa.getBound());
+        return finish(n, 0);
+    }
+
+    /**
+     * ARA*, weighted A* passes with w0, w0-step, ... down to 1, see AnytimeAStar.java.
+     * Every better solution is given to SearchListener.improved() (see setListener()).
+     * Stops at time limit (see setTimeLimit()) or after the optimal pass.
+     * @return best Node found. Else returns null.
+     */
+    public Node ARAStar(double w0, double step){
+        AnytimeAStar ara = new AnytimeAStar(this, root, goal, listener);
+        ara.setTimeLimit(time_limit);
+        if(!begin("ARA* (w0=" + w0 + ")")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = ara.anytime(w0, step);
+        nodes_expanded = ara.getNodes_expanded();
+        stats.setBound(ara.getBound());
+        return finish(n, 0);
+    }
+
+    private int[] ida_tiles,ida_dist,ida_path,ida_goal_pos;
+    private int ida_blank,ida_h,ida_depth;
+    private long ida_key;               //packed state, kept only with a perimeter
+    private SuccessorGenerator ida_gen;
+    private GoalPerimeter ida_perimeter;
+
+    /**
+     * Recursive part of IDAStar().
+     * @return -1 if goal found, else smallest f value that exceeded bound.
+     */
+    private int idaSearch(int g, int bound, int fsm){
+        GoalPerimeter p = ida_perimeter;
+        int h = ida_h;
+        if(p != null){
+            //h is admissible, so states with h over perimeter depth are not looked up
+            int e = (h <= p.getDepth()) ? p.distance(ida_key) : -1;
+            if(e >= 0){             //rest of path is known, see IDAStar()
+                if(g + e > bound){
+                    return g + e;
+                }
+                ida_depth = g;
+                return -1;
+            }
+            h = p.boundManhattan(h);
+        }
+        int f = g + h;
+        if(f > bound){
+            return f;
+        }
+        if(h == 0){                 //every tile on its goal cell, so agent is too
+            ida_depth = g;
+            return -1;
+        }
+        nodes_expanded++;
+        if(detailed) stats.countLayer(f);
+        if(--countdown == 0) progress(g);
+        int cells = ida_tiles.length;
+        int min = Integer.MAX_VALUE;
+        int from = ida_blank;
+        SuccessorGenerator gen = ida_gen;
+        for(int m=0; m<4; m++){
+            int to = gen.target(from, m);
+            if(to < 0){
+                continue;
+            }
+            int next = gen.next(fsm, m);
+            if(next < 0){
+                continue;
+            }
+            nodes_generated++;
+            int t = ida_tiles[to];
+            int dh = ida_dist[t*cells + from] - ida_dist[t*cells + to];
+            long key = ida_key;
+            if(p != null) ida_key = State.slidePacked(key, from, to);
+            ida_tiles[from] = t;            //make move
+            ida_tiles[to] = 0;
+            ida_blank = to;
+            ida_h += dh;
+            ida_path[g] = m;
+            int r = idaSearch(g+1, bound, next);
+            ida_h -= dh;                    //unmake move
+            ida_blank = from;
+            ida_key = key;
+            ida_tiles[to] = t;
+            ida_tiles[from] = 0;
+            if(r == -1){
+                return -1;
+            }
+            if(r < min){
+                min = r;
+            }
+        }
+        return min;
     }
 
     /**
@@ -58,29 +1124,131 @@ public class Search {
      * @return Node if a solution found. Else returns null.
      */
     public Node BFS(){
+        Node hit = cached("BFS");
+        if(hit != null){
+            return hit;
+        }
+        if(root.getState().isPacked()){
+            return remember(arenaBFS());
+        }
         Queue<Node> nodes = new LinkedList<>();
+        boolean dd = closed != null;
+        if(!begin("BFS")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
         nodes.add(root);
+        if(dd) open(root.getState(), 0);
         try {
             while (!nodes.isEmpty()) {
                 Node n = nodes.poll();
                 if (n.getState().isGoal(goal)) {
-                    System.out.println("BFS Found A Solution!" +
-                            "\nCost & Depth: " + n.getDepth() +
-                            "\nTotal Nodes Expanded: " + nodes_expanded);
-                    Thread.sleep(1000);
                     //n.printPath();
                     //n.printStepsOfPath();
-                    return n;
-                } else {
-                    nodes.addAll(n.move());
+                    return finish(n, nodes.size());
+                } else if(!dd || close(n.getState(), n.getDepth())) {
+                    for(Node c:n.move()){
+                        nodes_generated++;
+                        if(!dd || open(c.getState(), c.getDepth())){
+                            nodes.add(c);
+                        }
+                    }
                     nodes_expanded++;
+                    if(--countdown == 0) progress(nodes.size());
                 }
             }
         }
         catch (Exception e){
             e.printStackTrace();
         }
-        return null;
+        return finish(null, 0);
+    }
+
+    /**
+     * BFS() for packed boards. Arena indexes are in generation order,
+     * so the FIFO queue is the arena range from head to its end.
+     * Children are generated as packed keys, no State objects are created.
+     */
+    private Node arenaBFS(){
+        NodeArena nodes = arena();
+        State start = root.getState();
+        long goal_key = goal.getPacked();
+        boolean dd = closed != null;
+        SuccessorGenerator gen = SuccessorGenerator.get(start.getGrid_size());
+        GoalPerimeter p = perimeter();
+        if(!begin("BFS")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        nodes.add(start.getPacked(), start.getBlank(), -1, 0, 0, 0);
+        if(dd) open(start.getPacked(), 0);
+        try{
+            for(int head=0; head<nodes.size(); ){
+                int i = head++;
+                long key = nodes.getPacked(i);
+                int g = nodes.getG(i);
+                if(key == goal_key){
+                    return finish(nodes.toNode(i, root), nodes.size() - head);
+                }
+                if(p != null && p.distance(key) >= 0){
+                    //first perimeter state popped is on the deepest layer of an optimal path (or is root)
+                    return finish(toGoal(nodes.toNode(i, root), p), nodes.size() - head);
+                }
+                if(dd && !close(key, g)){
+                    continue;
+                }
+                int b = nodes.getBlank(i);
+                int back = (i == 0) ? -1 : nodes.getMove(i)^1;
+                for(int m=0; m<4; m++){
+                    int to = gen.target(b, m);
+                    if(m == back || to < 0){
+                        continue;
+                    }
+                    long c = State.slidePacked(key, b, to);
+                    nodes_generated++;
+                    if(!dd || open(c, g+1)){
+                        nodes.add(c, to, i, g+1, 0, m);
+                    }
+                }
+                nodes_expanded++;
+                if(--countdown == 0) progress(nodes.size() - head);
+            }
+        }
+        finally{
+            nodes.clear();
+        }
+        return finish(null, 0);
+    }
+
+    /**
+     * Breadth first frontier search, see FrontierSearch.java.
+     * Stores open nodes only (about two layers), path is recovered by searching again
+     * to and from a stored middle layer. Boards up to 4x4.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node FrontierBFS(){
+        return frontier(true, "Frontier BFS");
+    }
+
+    /**
+     * A* frontier search with Manhattan distance, see FrontierSearch.java. Boards up to 4x4.
+     * @return Node if a solution found. Else returns null.
+     */
+    public Node FrontierAStar(){
+        return frontier(false, "Frontier A*");
+    }
+
+    private Node frontier(boolean breadth_first, String algorithm){
+        Node hit = cached(algorithm);
+        if(hit != null){
+            return hit;
+        }
+        FrontierSearch fs = new FrontierSearch(root.getState().getGrid_size(), breadth_first);
+        if(!begin(algorithm)){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
+        Node n = fs.search(root, goal);
+        nodes_expanded = fs.getNodes_expanded();
+        nodes_generated = fs.getNodes_generated();
+        return finish(remember(n), fs.getPeak_stored());
     }
 
     /**
@@ -93,31 +1261,32 @@ public class Search {
     public Node DFS(){
         Stack<Node> nodes = new Stack<>();
         ArrayList<Node> child;
+        if(!begin("DFS")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
         nodes.add(root);
         try{
             while(!nodes.isEmpty()){
                 Node n = nodes.pop();
                 if(n.getState().isGoal(goal)){
-                    System.out.println("DFS Found A Solution!" +
-                            "\nCost & Depth: " + n.getDepth() +
-                            "\nTotal Nodes Expanded: " + nodes_expanded);
-                    Thread.sleep(1000);
                     //n.printPath();
                     //n.printStepsOfPath();
-                    return n;
+                    return finish(n, nodes.size());
                 }
                 else{
                     child = n.move();
                     Collections.shuffle(child);         //randomization
                     nodes.addAll(child);
+                    nodes_generated += child.size();
                     nodes_expanded++;
+                    if(--countdown == 0) progress(nodes.size());
                 }
             }
         }
         catch (Exception e){
             e.printStackTrace();
         }
-        return null;
+        return finish(null, 0);
     }
 
     /**
@@ -130,28 +1299,28 @@ public class Search {
         Stack<Node> nodes = new Stack<>();
         ArrayList<Node> child;
         int depth_limit = 0;
+        if(!begin("IDS")){
+            return finish(null, 0);      //unsolvable, see State.canReach()
+        }
         nodes.add(root);
         try{
             while(!nodes.isEmpty()){
                 Node n = nodes.pop();
                 if(n.getState().isGoal(goal)){
-                    System.out.println("IDS Found A Solution With Depth Limit "
-                            +depth_limit+" !"+
-                            "\nCost & Depth: " + n.getDepth() +
-                            "\nTotal Nodes Expanded: " + nodes_expanded);
-                    Thread.sleep(1000);
                     //n.printPath();
                     //n.printStepsOfPath();
-                    return n;
+                    return finish(n, nodes.size());
                 }
                 else{
                     child = n.move();
+                    nodes_generated += child.size();
                     for(Node c:child){
                         if(c.getDepth() <= depth_limit){
                             nodes.add(c);
                         }
                     }
                     nodes_expanded++;
+                    if(--countdown == 0) progress(nodes.size());
                 }
                 if(nodes.isEmpty()){
                     nodes.add(root);
@@ -162,7 +1331,7 @@ public class Search {
         catch (Exception e){
             e.printStackTrace();
         }
-        return null;
+        return finish(null, 0);
     }
 
 }
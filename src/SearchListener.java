@@ -0,0 +1,22 @@
+/**
+ * SearchListener interface receives metrics of a running search.
+ * progress() is called from the search thread every N expansions (see Search.setListener()),
+ * so it should return quickly. Stats object is live, copy values that must be kept.
+ * @author VedFI
+ */
+public interface SearchListener {
+    void progress(SearchStats stats);
+
+    /**
+     * Called by anytime searches (see Search.ARAStar()) for every better solution.
+     * @param bound: solution cost is at most bound times the optimal cost, NaN if unknown.
+     */
+    default void improved(Node solution, double bound){
+    }
+
+    /**
+     * Called once when search ends, solved or not.
+     */
+    default void finished(SearchStats stats){
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * SearchMonitor class is the JMX view of a Search object.
+ * Stays registered while the Search object runs many searches
+ * and always reports the current (or last) one.
+ * @author VedFI
+ */
+public class SearchMonitor implements SearchStatsMBean {
+    private volatile SearchStats current = new SearchStats("none");
+
+    void setCurrent(SearchStats stats){
+        current = stats;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return current.getAlgorithm();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return current.isRunning();
+    }
+
+    @Override
+    public boolean isSolved() {
+        return current.isSolved();
+    }
+
+    @Override
+    public int getDepth() {
+        return current.getDepth();
+    }
+
+    @Override
+    public double getSuboptimalityBound() {
+        return current.getSuboptimalityBound();
+    }
+
+    @Override
+    public long getExpanded() {
+        return current.getExpanded();
+    }
+
+    @Override
+    public long getGenerated() {
+        return current.getGenerated();
+    }
+
+    @Override
+    public double getExpansionsPerSecond() {
+        return current.getExpansionsPerSecond();
+    }
+
+    @Override
+    public double getGenerationsPerSecond() {
+        return current.getGenerationsPerSecond();
+    }
+
+    @Override
+    public int getFrontierSize() {
+        return current.getFrontierSize();
+    }
+
+    @Override
+    public int getPeakFrontierSize() {
+        return current.getPeakFrontierSize();
+    }
+
+    @Override
+    public int getClosedSize() {
+        return current.getClosedSize();
+    }
+
+    @Override
+    public long getPeakMemoryBytes() {
+        return current.getPeakMemoryBytes();
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return current.getElapsedMillis();
+    }
+
+    @Override
+    public long getHeuristicMillis() {
+        return current.getHeuristicMillis();
+    }
+
+    @Override
+    public long getHashMatches() {
+        return current.getHashMatches();
+    }
+
+    @Override
+    public long getHashCollisions() {
+        return current.getHashCollisions();
+    }
+}
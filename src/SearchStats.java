@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+/**
+ * SearchStats class holds metrics of one search run.
+ * Search updates it when it starts, every progress interval and when it ends,
+ * not on every expansion, so values seen by a listener or over JMX lag behind by at most one interval.
+ * Values are read by other threads (JMX, SearchMonitor), every method that touches a counter is synchronized.
+ * Heuristic time, peak memory and the f layer histogram are only collected
+ * when detailed stats are enabled (see Search.setDetailedStats()).
+ * @author VedFI
+ */
+public class SearchStats implements SearchStatsMBean {
+    private final String algorithm;
+    private boolean running;
+    private boolean solved;
+    private int depth = -1;
+    private long expanded,generated;
+    private int frontier,peak_frontier,closed;
+    private long peak_memory;
+    private long start_nanos,elapsed_nanos,heuristic_nanos;
+    private long hash_matches,hash_collisions;
+    private long[] layers = new long[0];        //layers[f] = expansions with f
+    private double bound = 1;
+
+    public SearchStats(String algorithm){
+        this.algorithm = algorithm;
+        start_nanos = System.nanoTime();
+        running = true;
+    }
+
+    /**
+     * Records current counters.
+     */
+    synchronized void update(long expanded, long generated, int frontier, int closed){
+        this.expanded = expanded;
+        this.generated = generated;
+        this.frontier = frontier;
+        this.closed = closed;
+        if(frontier > peak_frontier){
+            peak_frontier = frontier;
+        }
+        elapsed_nanos = System.nanoTime() - start_nanos;
+    }
+
+    synchronized void sampleMemory(){
+        Runtime rt = Runtime.getRuntime();
+        long used = rt.totalMemory() - rt.freeMemory();
+        if(used > peak_memory){
+            peak_memory = used;
+        }
+    }
+
+    synchronized void addHeuristicNanos(long nanos){
+        heuristic_nanos += nanos;
+    }
+
+    synchronized void countLayer(int f){
+        if(f >= layers.length){
+            layers = Arrays.copyOf(layers, Math.max(f+1, layers.length*2));
+        }
+        layers[f]++;
+    }
+
+    synchronized void setHashes(long matches, long collisions){
+        hash_matches = matches;
+        hash_collisions = collisions;
+    }
+
+    synchronized void setBound(double bound){
+        this.bound = bound;
+    }
+
+    synchronized void finish(Node n){
+        solved = (n != null);
+        depth = solved ? n.getDepth() : -1;
+        elapsed_nanos = System.nanoTime() - start_nanos;
+        running = false;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public synchronized boolean isSolved() {
+        return solved;
+    }
+
+    @Override
+    public synchronized int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public synchronized long getExpanded() {
+        return expanded;
+    }
+
+    @Override
+    public synchronized long getGenerated() {
+        return generated;
+    }
+
+    @Override
+    public synchronized double getExpansionsPerSecond() {
+        return (elapsed_nanos == 0) ? 0 : expanded*1e9/elapsed_nanos;
+    }
+
+    @Override
+    public synchronized double getGenerationsPerSecond() {
+        return (elapsed_nanos == 0) ? 0 : generated*1e9/elapsed_nanos;
+    }
+
+    @Override
+    public synchronized int getFrontierSize() {
+        return frontier;
+    }
+
+    @Override
+    public synchronized int getPeakFrontierSize() {
+        return peak_frontier;
+    }
+
+    @Override
+    public synchronized int getClosedSize() {
+        return closed;
+    }
+
+    @Override
+    public synchronized long getPeakMemoryBytes() {
+        return peak_memory;
+    }
+
+    @Override
+    public synchronized long getElapsedMillis() {
+        return elapsed_nanos/1000000;
+    }
+
+    @Override
+    public synchronized long getHeuristicMillis() {
+        return heuristic_nanos/1000000;
+    }
+
+    @Override
+    public synchronized long getHashMatches() {
+        return hash_matches;
+    }
+
+    @Override
+    public synchronized long getHashCollisions() {
+        return hash_collisions;
+    }
+
+    @Override
+    public synchronized double getSuboptimalityBound() {
+        return bound;
+    }
+
+    /**
+     * @return expansions per f value (A* and IDA* with detailed stats), index is f.
+     */
+    public synchronized long[] getLayerHistogram() {
+        int len = layers.length;
+        while(len > 0 && layers[len-1] == 0) len--;
+        return Arrays.copyOf(layers, len);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder out = new StringBuilder(algorithm);
+        out.append(solved ? " Found A Solution!" : " Found No Solution!");
+        if(solved){
+            out.append("\nCost & Depth: ").append(depth);
+            if(Double.isNaN(bound)){
+                out.append(" (no bound)");
+            }
+            else if(bound != 1){
+                out.append(" (at most ").append(String.format("%.3f", bound)).append(" x optimal)");
+            }
+        }
+        out.append("\nTotal Nodes Expanded: ").append(expanded)
+                .append("\nTotal Nodes Generated: ").append(generated)
+                .append("\nPeak Frontier: ").append(peak_frontier)
+                .append("\nTime: ").append(getElapsedMillis()).append(" ms")
+                .append(String.format(" (%.0f expansions/s)", getExpansionsPerSecond()));
+        if(hash_matches > 0){
+            out.append("\nHash Collisions: ").append(hash_collisions)
+                    .append(" of ").append(hash_matches).append(" full comparisons");
+        }
+        if(peak_memory > 0){
+            out.append("\nPeak Memory: ").append(peak_memory/1000000f).append(" MB")
+                    .append("\nHeuristic Time: ").append(getHeuristicMillis()).append(" ms");
+        }
+        return out.toString();
+    }
+}
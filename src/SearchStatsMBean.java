@@ -0,0 +1,54 @@
+/**
+ * SearchStatsMBean interface lists the search metrics exposed through JMX.
+ * See Search.registerMBean().
+ * @author VedFI
+ */
+public interface SearchStatsMBean {
+    String getAlgorithm();
+
+    boolean isRunning();
+
+    boolean isSolved();
+
+    /**
+     * @return solution depth, -1 if none found (yet).
+     */
+    int getDepth();
+
+    /**
+     * @return solution cost is at most this times the optimal cost, 1 for optimal searches,
+     * NaN if the search gives no guarantee (see AnytimeAStar.getBound()).
+     */
+    double getSuboptimalityBound();
+
+    long getExpanded();
+
+    long getGenerated();
+
+    double getExpansionsPerSecond();
+
+    double getGenerationsPerSecond();
+
+    int getFrontierSize();
+
+    int getPeakFrontierSize();
+
+    int getClosedSize();
+
+    long getPeakMemoryBytes();
+
+    long getElapsedMillis();
+
+    long getHeuristicMillis();
+
+    /**
+     * @return full state comparisons made because Zobrist hashes were equal (boards larger than 4x4).
+     * Counters are process wide, comparisons of other threads during the run are included.
+     */
+    long getHashMatches();
+
+    /**
+     * @return comparisons of getHashMatches() that found different states.
+     */
+    long getHashCollisions();
+}
@@ -0,0 +1,308 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SolutionCache class remembers solutions of boards up to 4x4 by start and goal state.
+ * Start state is canonicalized under the board symmetries (rotations and reflections)
+ * that keep the goal's agent cell in place, tiles renamed so the goal maps onto itself.
+ * For the standard goal that is the diagonal reflection, so a puzzle and its transpose
+ * share one entry. Stored moves are turned back with the same symmetry.
+ * Two tiers: a bounded LRU map in memory, and an optional append only file
+ * whose index (key to file offset) is read when the cache is opened.
+ * Entries evicted from memory are read back from the file on the next request.
+ * Methods are synchronized, one cache can serve many Search objects.
+ * @author VedFI
+ */
+public class SolutionCache {
+    private static final int MAGIC = 0x4E505343;         //"NPSC"
+    private static final int HEADER_BYTES = 4;
+    private static final int RECORD_HEADER_BYTES = 1 + 8 + 8 + 2;
+
+    private final LinkedHashMap<Key,byte[]> memory;    //canonical moves, one per byte
+    private final HashMap<Key,Long> disk = new HashMap<>();
+    private FileChannel file;
+    private long hits,disk_hits,misses;
+
+    private static final class Key {
+        final int grid_size;
+        final long goal,start;
+
+        Key(int grid_size, long goal, long start){
+            this.grid_size = grid_size;
+            this.goal = goal;
+            this.start = start;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Key)) return false;
+            Key k = (Key)o;
+            return k.grid_size == grid_size && k.goal == goal && k.start == start;
+        }
+
+        @Override
+        public int hashCode(){
+            long h = (start*0x9E3779B97F4A7C15L + goal)*0x9E3779B97F4A7C15L + grid_size;
+            return (int)(h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * @param capacity: number of solutions kept in memory.
+     * @param path: file of the disk tier, created if missing, null for memory only.
+     */
+    public SolutionCache(final int capacity, Path path) throws IOException {
+        memory = new LinkedHashMap<Key,byte[]>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key,byte[]> eldest){
+                return size() > capacity;
+            }
+        };
+        if(path != null){
+            file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            loadIndex(path);
+        }
+    }
+
+    /**
+     * Reads record headers of the file. A record cut short by a crash is dropped.
+     */
+    private void loadIndex(Path path) throws IOException {
+        long size = file.size();
+        if(size == 0){
+            ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC);
+            h.flip();
+            while(h.hasRemaining()) file.write(h, 0);
+            return;
+        }
+        ByteBuffer h = ByteBuffer.allocate(RECORD_HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        if(size < HEADER_BYTES || !read(h, 0, HEADER_BYTES) || h.getInt(0) != MAGIC){
+            throw new IOException("not a solution cache: " + path);
+        }
+        long pos = HEADER_BYTES;
+        while(pos < size){
+            if(!read(h, pos, RECORD_HEADER_BYTES)){
+                break;
+            }
+            int length = h.getShort(17) & 0xFFFF;
+            long end = pos + RECORD_HEADER_BYTES + (length+3)/4;
+            if(end > size){
+                break;
+            }
+            disk.put(new Key(h.get(0), h.getLong(1), h.getLong(9)), pos);
+            pos = end;
+        }
+        if(pos < size){
+            file.truncate(pos);
+        }
+    }
+
+    /**
+     * Reads count bytes at pos into buffer start.
+     * @return false if file ends before.
+     */
+    private boolean read(ByteBuffer buf, long pos, int count) throws IOException {
+        buf.clear().limit(count);
+        while(buf.hasRemaining()){
+            if(file.read(buf, pos + buf.position()) < 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return moves from start to goal (State move codes), null if not cached or not a packed board.
+     */
+    public synchronized int[] get(State start, State goal) throws IOException {
+        if(!start.isPacked()){
+            return null;
+        }
+        Symmetry sym = Symmetry.canonical(start, goal);
+        Key key = new Key(start.getGrid_size(), goal.getPacked(), sym.start);
+        byte[] moves = memory.get(key);
+        if(moves != null){
+            hits++;
+        }
+        else{
+            Long pos = (file != null) ? disk.get(key) : null;
+            if(pos == null){
+                misses++;
+                return null;
+            }
+            moves = readRecord(pos);
+            memory.put(key, moves);
+            disk_hits++;
+        }
+        int[] path = new int[moves.length];
+        for(int i=0; i<moves.length; i++){
+            path[i] = sym.fromCanonical(moves[i]);
+        }
+        return path;
+    }
+
+    private byte[] readRecord(long pos) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        read(h, pos, RECORD_HEADER_BYTES);
+        int length = h.getShort(17) & 0xFFFF;
+        ByteBuffer body = ByteBuffer.allocate((length+3)/4);
+        read(body, pos + RECORD_HEADER_BYTES, body.capacity());
+        byte[] moves = new byte[length];
+        for(int i=0; i<length; i++){
+            moves[i] = (byte)((body.get(i>>2) >>> ((i&3)<<1)) & 3);
+        }
+        return moves;
+    }
+
+    /**
+     * Stores solution moves of start, appending it to the file if not there yet.
+     */
+    public synchronized void put(State start, State goal, int[] path) throws IOException {
+        if(!start.isPacked() || path.length > 0xFFFF){
+            return;
+        }
+        Symmetry sym = Symmetry.canonical(start, goal);
+        Key key = new Key(start.getGrid_size(), goal.getPacked(), sym.start);
+        byte[] moves = new byte[path.length];
+        for(int i=0; i<path.length; i++){
+            moves[i] = (byte)sym.toCanonical(path[i]);
+        }
+        memory.put(key, moves);
+        if(file == null || disk.containsKey(key)){
+            return;
+        }
+        ByteBuffer rec = ByteBuffer.allocate(RECORD_HEADER_BYTES + (moves.length+3)/4).order(ByteOrder.BIG_ENDIAN);
+        rec.put((byte)key.grid_size).putLong(key.goal).putLong(key.start).putShort((short)moves.length);
+        for(int i=0; i<moves.length; i++){
+            int at = RECORD_HEADER_BYTES + (i>>2);
+            rec.put(at, (byte)(rec.get(at) | moves[i] << ((i&3)<<1)));
+        }
+        rec.clear();
+        long pos = file.size();
+        while(rec.hasRemaining()){
+            file.write(rec, pos + rec.position());
+        }
+        disk.put(key, pos);
+    }
+
+    /**
+     * Flushes and closes the file.
+     */
+    public synchronized void close() throws IOException {
+        if(file != null){
+            file.force(false);
+            file.close();
+            file = null;
+        }
+    }
+
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    public synchronized long getDisk_hits(){
+        return disk_hits;
+    }
+
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    /**
+     * @return number of solutions in the file, or in memory without a file.
+     */
+    public synchronized int size(){
+        return (file != null) ? disk.size() : memory.size();
+    }
+
+    @Override
+    public synchronized String toString(){
+        long total = hits + disk_hits + misses;
+        return "Solution cache: " + hits + " memory hits, " + disk_hits + " disk hits, " + misses + " misses" +
+                ((total == 0) ? "" : String.format(" (%.1f%% hit rate)", 100.0*(hits + disk_hits)/total));
+    }
+
+    /**
+     * One of the 8 symmetries of the square board, with the canonical start it gives.
+     */
+    private static final class Symmetry {
+        //cell (x,y) goes to (x*a + y*b + c, x*d + y*e + f), c and f in units of n-1
+        private static final int[][] MAPS = {
+                {1,0,0, 0,1,0}, {0,1,0, 1,0,0}, {0,1,0, -1,0,1}, {-1,0,1, 0,-1,1},
+                {0,-1,1, 1,0,0}, {-1,0,1, 0,1,0}, {1,0,0, 0,-1,1}, {0,-1,1, -1,0,1}};
+        private static final int[][] VECTORS = {{0,-1}, {0,1}, {-1,0}, {1,0}};    //LEFT, RIGHT, UP, DOWN
+
+        final long start;
+        final int[] to_canonical = new int[4];
+
+        private Symmetry(long start, int[] map){
+            this.start = start;
+            for(int m=0; m<4; m++){
+                int dx = VECTORS[m][0]*map[0] + VECTORS[m][1]*map[1];
+                int dy = VECTORS[m][0]*map[3] + VECTORS[m][1]*map[4];
+                for(int k=0; k<4; k++){
+                    if(VECTORS[k][0] == dx && VECTORS[k][1] == dy){
+                        to_canonical[m] = k;
+                    }
+                }
+            }
+        }
+
+        int toCanonical(int move){
+            return to_canonical[move];
+        }
+
+        int fromCanonical(int move){
+            for(int m=0; m<4; m++){
+                if(to_canonical[m] == move) return m;
+            }
+            return -1;
+        }
+
+        private static int apply(int[] map, int cell, int n){
+            int x = cell/n, y = cell%n;
+            int tx = x*map[0] + y*map[1] + map[2]*(n-1);
+            int ty = x*map[3] + y*map[4] + map[5]*(n-1);
+            return tx*n + ty;
+        }
+
+        /**
+         * Tries every symmetry that keeps goal's agent cell, tile at goal cell c is renamed
+         * to the goal tile of cell d(c), so goal maps onto itself.
+         * @return symmetry giving the smallest packed start.
+         */
+        static Symmetry canonical(State start, State goal){
+            int n = start.getGrid_size(), cells = n*n;
+            int[] goal_cell = new int[cells];
+            for(int c=0; c<cells; c++){
+                goal_cell[goal.getTile(c)] = c;
+            }
+            int[] best_map = MAPS[0];
+            long best = start.getPacked();
+            for(int k=1; k<MAPS.length; k++){
+                int[] map = MAPS[k];
+                if(apply(map, goal.getBlank(), n) != goal.getBlank()){
+                    continue;
+                }
+                long packed = 0;
+                for(int c=0; c<cells; c++){
+                    int t = start.getTile(c);
+                    int renamed = goal.getTile(apply(map, goal_cell[t], n));
+                    packed |= (long)renamed << (apply(map, c, n) << 2);
+                }
+                if(packed < best){
+                    best = packed;
+                    best_map = map;
+                }
+            }
+            return new Symmetry(best, best_map);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * SolutionCodec class stores solutions at 2 bits per move.
+ * A stream starts with a 4 byte magic, then one record per solution:
+ * grid size (1 byte), start state, move count (4 bytes), moves packed 4 per byte, first move in the low bits.
+ * Start state is the packed key (8 bytes) for boards up to 4x4, else one byte per tile
+ * (two bytes per tile beyond 16x16), row by row.
+ * Writer and Reader go through a reused ByteBuffer and create no objects per move.
+ * @author VedFI
+ */
+public class SolutionCodec {
+    private static final int MAGIC = 0x4E50534C;         //"NPSL"
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private static int tileBytes(int grid_size){
+        return (grid_size*grid_size <= 256) ? 1 : 2;
+    }
+
+    /**
+     * Writes records to an output stream. Closing the writer closes the stream.
+     */
+    public static class Writer implements AutoCloseable {
+        private final OutputStream out;
+        private ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES);
+        private int[] moves = new int[64];
+        private long records;
+
+        public Writer(OutputStream out) throws IOException {
+            this.out = out;
+            buf.putInt(MAGIC);
+        }
+
+        /**
+         * Writes path from root of node to node.
+         */
+        public void write(Node node) throws IOException {
+            int length = node.getDepth();
+            if(moves.length < length){
+                moves = new int[Math.max(length, moves.length*2)];
+            }
+            Node root = node;
+            for(int i=length-1; i>=0; i--){
+                moves[i] = root.getMove();
+                root = root.getParent();
+            }
+            write(root.getState(), moves, length);
+        }
+
+        /**
+         * Writes the first length entries of moves (State move codes) made from start.
+         */
+        public void write(State start, int[] moves, int length) throws IOException {
+            int n = start.getGrid_size(), cells = n*n;
+            int state_bytes = start.isPacked() ? 8 : cells*tileBytes(n);
+            int move_bytes = (length+3)/4;
+            reserve(1 + state_bytes + 4 + move_bytes);
+            buf.put((byte)n);
+            if(start.isPacked()){
+                buf.putLong(start.getPacked());
+            }
+            else{
+                boolean wide = tileBytes(n) == 2;
+                for(int i=0; i<cells; i++){
+                    if(wide) buf.putShort((short)start.getTile(i));
+                    else buf.put((byte)start.getTile(i));
+                }
+            }
+            buf.putInt(length);
+            for(int i=0; i<length; i+=4){
+                int b = 0;
+                for(int k=0; k<4 && i+k<length; k++){
+                    b |= moves[i+k] << (k<<1);
+                }
+                buf.put((byte)b);
+            }
+            records++;
+        }
+
+        /**
+         * Makes room for bytes, flushing the buffer or growing it for a record larger than the buffer.
+         */
+        private void reserve(int bytes) throws IOException {
+            if(buf.remaining() >= bytes){
+                return;
+            }
+            drain();
+            if(buf.capacity() < bytes){
+                buf = ByteBuffer.allocate(bytes);
+            }
+        }
+
+        private void drain() throws IOException {
+            out.write(buf.array(), 0, buf.position());
+            buf.clear();
+        }
+
+        public void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        public long getRecords(){
+            return records;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            out.close();
+        }
+    }
+
+    /**
+     * Reads records one by one, next() replaces the current record. Closing the reader closes the stream.
+     */
+    public static class Reader implements AutoCloseable {
+        private final InputStream in;
+        private ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES);
+        private int grid_size,length;
+        private long packed;
+        private int[] tiles = new int[0];
+        private byte[] moves = new byte[16];
+
+        public Reader(InputStream in) throws IOException {
+            this.in = in;
+            buf.limit(0);
+            if(!fill(4) || buf.getInt() != MAGIC){
+                throw new IOException("not a solution stream");
+            }
+        }
+
+        /**
+         * Makes sure bytes are buffered, compacting and growing the buffer if needed.
+         * @return false if stream ends first.
+         */
+        private boolean fill(int bytes) throws IOException {
+            if(buf.remaining() >= bytes){
+                return true;
+            }
+            if(buf.capacity() < bytes){
+                ByteBuffer larger = ByteBuffer.allocate(bytes);
+                larger.put(buf);
+                buf = larger;
+            }
+            else{
+                buf.compact();
+            }
+            while(buf.position() < bytes){
+                int r = in.read(buf.array(), buf.position(), buf.capacity() - buf.position());
+                if(r < 0){
+                    buf.flip();
+                    return false;
+                }
+                buf.position(buf.position() + r);
+            }
+            buf.flip();
+            return true;
+        }
+
+        /**
+         * Reads next record.
+         * @return false at end of stream.
+         * @throws EOFException if stream ends inside a record.
+         */
+        public boolean next() throws IOException {
+            if(!fill(1)){
+                if(buf.hasRemaining()) throw new EOFException("truncated record");
+                return false;
+            }
+            grid_size = buf.get(buf.position()) & 0xFF;
+            int cells = grid_size*grid_size;
+            boolean is_packed = grid_size <= 4;
+            int state_bytes = is_packed ? 8 : cells*tileBytes(grid_size);
+            if(!fill(1 + state_bytes + 4)){
+                throw new EOFException("truncated record");
+            }
+            buf.get();
+            if(is_packed){
+                packed = buf.getLong();
+            }
+            else{
+                if(tiles.length != cells) tiles = new int[cells];
+                boolean wide = tileBytes(grid_size) == 2;
+                for(int i=0; i<cells; i++){
+                    tiles[i] = wide ? buf.getShort() & 0xFFFF : buf.get() & 0xFF;
+                }
+            }
+            length = buf.getInt();
+            int move_bytes = (length+3)/4;
+            if(!fill(move_bytes)){
+                throw new EOFException("truncated record");
+            }
+            if(moves.length < move_bytes){
+                moves = new byte[Math.max(move_bytes, moves.length*2)];
+            }
+            buf.get(moves, 0, move_bytes);
+            return true;
+        }
+
+        public int getGrid_size(){
+            return grid_size;
+        }
+
+        /**
+         * @return number of moves of current record.
+         */
+        public int getLength(){
+            return length;
+        }
+
+        /**
+         * @return i-th move (State move code) of current record.
+         */
+        public int getMove(int i){
+            return (moves[i>>2] >>> ((i&3)<<1)) & 3;
+        }
+
+        /**
+         * @return start state of current record (a new object).
+         */
+        public State getStart(){
+            if(grid_size <= 4){
+                return State.unpack(grid_size, packed);
+            }
+            State s = new State(grid_size);
+            for(int i=0; i<tiles.length; i++){
+                s.setPuzzleCell(i/grid_size, i%grid_size, tiles[i]);
+                if(tiles[i] == 0){
+                    s.setAgent(i/grid_size, i%grid_size);
+                }
+            }
+            return s;
+        }
+
+        /**
+         * Appends "LEFT-> UP-> ... GOAL" form of current record (Node.printPath() without the root).
+         */
+        public void appendText(StringBuilder out){
+            for(int i=0; i<length; i++){
+                out.append(State.ACTIONS[getMove(i)]).append("-> ");
+            }
+            out.append("GOAL");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Converts a solution stream to text, one "LEFT-> UP-> ... GOAL" line per record.
+     * Usage: SolutionCodec input output|-
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2){
+            System.out.println("Usage: SolutionCodec input output|-");
+            return;
+        }
+        java.io.Writer out = args[1].equals("-") ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8);
+        StringBuilder line = new StringBuilder();
+        try(Reader in = new Reader(Files.newInputStream(Paths.get(args[0])))){
+            while(in.next()){
+                line.setLength(0);
+                in.appendText(line);
+                line.append('\n');
+                out.append(line);
+            }
+        }
+        finally{
+            out.close();
+        }
+    }
+}
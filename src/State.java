@@ -1,19 +1,36 @@
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Random;
 import java.util.Stack;
 
 /**
  * State class defines the puzzle world.
- * Puzzle defined with matrix of blocks.
- * Agent block is also defined as an external variable for ease of access.
+ * Puzzle is stored bit-packed: 4 bits per tile in a single long for boards up to 4x4,
+ * 8 bits per tile in a long array for larger boards (16 bits beyond 16x16).
+ * Tile at cell (x,y) is stored at index x*grid_size + y.
+ * Agent (blank) index is stored directly, so it never has to be searched for.
+ * Larger boards also keep a Zobrist hash, updated by every tile change (see Zobrist.java).
+ * Block[][] is only used as a conversion format (see State(Block[][]) and getPuzzle()).
  * Boolean movable variables created for actions.
  * If agent can move a direction (agent position is not on border) then moveable variable set to true.
  * @author VedFI
  */
 
 public class State {
-    private Block[][] puzzle;
-    private Block agent;
+    /**
+     * Move codes. A move names the direction the agent travels.
+     * Inverse of a move is move^1.
+     */
+    public static final int LEFT = 0, RIGHT = 1, UP = 2, DOWN = 3;
+    public static final String[] ACTIONS = {"LEFT", "RIGHT", "UP", "DOWN"};
+
     private int grid_size;
+    private int bits,per_word;
+    private long mask;
+    private long packed;            //used if grid_size <= 4
+    private long[] words;           //used if grid_size > 4
+    private long hash;              //Zobrist hash of words
+    private int blank;
     private boolean movableDown,movableUp,movableLeft,movableRight;
 
     /**
@@ -23,108 +40,351 @@ public class State {
      */
     public State(int grid_size){
         this.grid_size = grid_size;
-        puzzle = new Block[grid_size][grid_size];
+        bits = (grid_size <= 4) ? 4 : (grid_size <= 16) ? 8 : 16;
+        per_word = 64/bits;
+        mask = (1L<<bits)-1;
+        if(grid_size > 4){
+            words = new long[(grid_size*grid_size + per_word - 1)/per_word];
+            hash = Zobrist.empty(grid_size*grid_size);
+        }
     }
 
     /**
      * Constructor for State Class
      * Create State object with this constructor if
      * matrix of blocks will be given.
-     * This constructor finds agent in matrix and assigns it to external agent object automatically.
+     * This constructor finds agent in matrix and packs the blocks.
      */
     public State(Block[][] puzzle){
-        grid_size = puzzle.length;
-        this.puzzle = puzzle;
+        this(puzzle.length);
         for(int x=0; x<grid_size; x++) {
             for (int y = 0; y < grid_size; y++) {
+                setPuzzleCell(x,y,puzzle[x][y].getValue());
                 if(puzzle[x][y].getValue()==0){
-                    agent = puzzle[x][y];
+                    blank = x*grid_size + y;
                 }
             }
         }
     }
 
+    /**
+     * Constructor for packed boards (grid_size <= 4).
+     * @param packed: 4 bits per tile, tile of index i at bits [4i, 4i+4).
+     * @param blank: index of agent.
+     */
+    public State(int grid_size, long packed, int blank){
+        this(grid_size);
+        if(words != null){
+            throw new IllegalArgumentException("packed constructor needs grid_size <= 4");
+        }
+        this.packed = packed;
+        this.blank = blank;
+    }
+
+    /**
+     * Rebuilds a state from its packed key (grid_size <= 4), agent is the zero nibble.
+     */
+    public static State unpack(int grid_size, long packed){
+        int blank = 0;
+        while(((packed >>> (blank<<2)) & 0xF) != 0){
+            blank++;
+        }
+        return new State(grid_size, packed, blank);
+    }
+
+    /**
+     * Copy constructor. Shares nothing with the given state.
+     */
+    public State(State s){
+        grid_size = s.grid_size;
+        bits = s.bits;
+        per_word = s.per_word;
+        mask = s.mask;
+        packed = s.packed;
+        words = (s.words != null) ? s.words.clone() : null;
+        hash = s.hash;
+        blank = s.blank;
+    }
+
     /**
      * Generates a random state. (Actually converts state object that run this method.)
-     * Sets agent position to the middle. Assigns agent to external object as well.
-     * Generated state very likely be unsolvable. Check before using search methods.
+     * Sets agent position to the middle.
+     * Generated state very likely be unsolvable. Check with canReach() before using search methods,
+     * or use generateSolvableState().
      */
     public void generateRandomState(){
-        Stack<Block> randomBlocks = new Stack<>();
-        Block temp = null;
+        Stack<Integer> randomBlocks = new Stack<>();
         for(int i=1; i<(grid_size*grid_size); i++){
-            randomBlocks.add(new Block(i,-1,-1));
+            randomBlocks.add(i);
         }
         Collections.shuffle(randomBlocks);
         for(int x=0; x<grid_size; x++){
             for(int y=0; y<grid_size; y++){
                 if(x == grid_size/2 && y == grid_size/2){
-                    temp = new Block(0,x,y);
-                    puzzle[x][y] = temp;
-                    agent = temp;
+                    setPuzzleCell(x,y,0);
+                    blank = x*grid_size + y;
                 }
                 else{
-                    temp = randomBlocks.pop();
-                    temp.setX(x);
-                    temp.setY(y);
-                    puzzle[x][y] = temp;
+                    setPuzzleCell(x,y,randomBlocks.pop());
                 }
             }
         }
     }
 
+    /**
+     * Generates a uniformly random state that can reach generateGoalState().
+     * (Actually converts state object that run this method.)
+     * All cells are shuffled, then two tiles are swapped if parity is wrong.
+     * @param random: source of randomness, seed it for repeatable instances.
+     */
+    public void generateSolvableState(Random random){
+        int cells = grid_size*grid_size;
+        int[] tiles = new int[cells];
+        for(int i=0; i<cells; i++){
+            tiles[i] = i;
+        }
+        for(int i=cells-1; i>0; i--){
+            int j = random.nextInt(i+1);
+            int t = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = t;
+        }
+        for(int i=0; i<cells; i++){
+            setTile(i,tiles[i]);
+            if(tiles[i] == 0){
+                blank = i;
+            }
+        }
+        State goal = new State(grid_size);
+        goal.generateGoalState();
+        if(!canReach(goal)){
+            int a = (blank == 0) ? 1 : 0, b = (blank <= 1) ? 2 : 1;
+            int t = getTile(a);
+            setTile(a,getTile(b));
+            setTile(b,t);
+        }
+    }
+
+    /**
+     * Generates a state by moving agent randomly from generateGoalState(),
+     * never undoing the previous move. Solution depth is at most length.
+     * (Actually converts state object that run this method.)
+     * @param random: source of randomness, seed it for repeatable instances.
+     */
+    public void generateRandomWalk(int length, Random random){
+        generateGoalState();
+        int prev = -1;
+        for(int i=0; i<length; ){
+            int m = random.nextInt(4);
+            if(m != (prev^1) && canMove(m)){
+                slideInPlace(m);
+                prev = m;
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Counts pairs of tiles (agent excluded) that are in reverse order, reading cells row by row.
+     * Uses a Fenwick tree over tile values, O(n log n) for n cells.
+     */
+    public long inversions(){
+        int cells = grid_size*grid_size;
+        int[] tree = new int[cells];            //tree[v]: tiles seen in a range of values ending at v
+        long inversions = 0;
+        int seen = 0;
+        for(int i=0; i<cells; i++){
+            int t = getTile(i);
+            if(t == 0){
+                continue;
+            }
+            int not_greater = 0;
+            for(int v=t; v>0; v-=v&-v){
+                not_greater += tree[v];
+            }
+            inversions += seen - not_greater;
+            for(int v=t; v<cells; v+=v&-v){
+                tree[v]++;
+            }
+            seen++;
+        }
+        return inversions;
+    }
+
+    /**
+     * Parity that no move changes. Horizontal moves keep the inversion count.
+     * Vertical moves pass the agent over grid_size-1 tiles, so on odd boards inversion
+     * parity is kept and on even boards it flips together with the agent's row.
+     * @return 0 or 1.
+     */
+    public int parity(){
+        long p = inversions();
+        if(grid_size%2 == 0){
+            p += blank/grid_size;
+        }
+        return (int)(p & 1);
+    }
+
+    /**
+     * States of the same size with equal parity() reach each other, others never do.
+     * @return true if goal can be reached from this state.
+     */
+    public boolean canReach(State goal){
+        return grid_size == goal.grid_size && parity() == goal.parity();
+    }
+
     /**
      * Generates a goal state. (Actually converts state object that run this method.)
      */
     public void generateGoalState(){
-        for(int x=0; x<grid_size; x++) {
-            for (int y = 0; y<grid_size; y++) {
-                if(x == 0 && y ==0){
-                    agent = new Block(0,x,y);
-                    puzzle[x][y] = agent;
-                }
-                else{
-                    int temp = x*grid_size + y;
-                    puzzle[x][y] = new Block(temp,x,y);
-                }
-            }
+        for(int i=0; i<grid_size*grid_size; i++){
+            setTile(i,i);
         }
+        blank = 0;
     }
 
     /**
      * Checks for if state is goal state.
+     * Compares packed words instead of cells, on larger boards only if Zobrist hashes are equal.
      * @return true if state is goal.
      */
     public boolean isGoal(State goal){
-        for(int x=0; x < grid_size; x++) {
-            for (int y = 0; y < grid_size; y++) {
-                if(puzzle[x][y].getValue() != goal.getPuzzle()[x][y].getValue()){
-                    return false;
-                }
-            }
+        boolean equal = sameTiles(goal);
+        if(words != null && blank == goal.blank && hash == goal.hash){
+            Zobrist.countMatch(equal);      //words were compared
+        }
+        return equal;
+    }
+
+    /**
+     * isGoal() without counting Zobrist matches.
+     */
+    private boolean sameTiles(State o){
+        if(blank != o.blank){
+            return false;
+        }
+        if(words == null){
+            return packed == o.packed;
+        }
+        return hash == o.hash && Arrays.equals(words, o.words);
+    }
+
+    /**
+     * @return true if agent can move to given direction.
+     */
+    public boolean canMove(int move){
+        switch (move){
+            case LEFT:  return blank % grid_size != 0;
+            case RIGHT: return blank % grid_size != grid_size-1;
+            case UP:    return blank >= grid_size;
+            default:    return blank < grid_size*(grid_size-1);
+        }
+    }
+
+    /**
+     * @return index of the cell agent moves to with given move. (No border check.)
+     */
+    public int target(int move){
+        switch (move){
+            case LEFT:  return blank-1;
+            case RIGHT: return blank+1;
+            case UP:    return blank-grid_size;
+            default:    return blank+grid_size;
+        }
+    }
+
+    /**
+     * Creates the child state where agent swapped with its neighbour.
+     * Move must be legal, check with canMove() first.
+     * @return new State object, this state is not modified.
+     */
+    public State slide(int move){
+        State s = new State(this);
+        s.slideInPlace(move);
+        return s;
+    }
+
+    /**
+     * @return tile on cell of a packed key (grid_size <= 4).
+     */
+    public static int tileOf(long packed, int cell){
+        return (int)((packed >>> (cell<<2)) & 0xF);
+    }
+
+    /**
+     * Moves agent of a packed key (grid_size <= 4) from blank to cell to.
+     * @return packed key of the new state.
+     */
+    public static long slidePacked(long packed, int blank, int to){
+        long t = (packed >>> (to<<2)) & 0xF;
+        return packed + (t << (blank<<2)) - (t << (to<<2));
+    }
+
+    /**
+     * Swaps agent with its neighbour on this state object.
+     * Move must be legal, check with canMove() first.
+     * @return value of the tile that has been moved.
+     */
+    public int slideInPlace(int move){
+        int to = target(move);
+        int t = getTile(to);
+        if(words == null){
+            //agent nibble is always 0, so the swap is two additions.
+            packed += ((long)t << (blank<<2)) - ((long)t << (to<<2));
+        }
+        else{
+            setTile(blank,t);
+            setTile(to,0);
+        }
+        blank = to;
+        return t;
+    }
+
+    /**
+     * @return numeric value of the tile at given index.
+     */
+    public int getTile(int index){
+        if(words == null){
+            return (int)((packed >>> (index<<2)) & 0xF);
+        }
+        return (int)((words[index/per_word] >>> ((index%per_word)*bits)) & mask);
+    }
+
+    public int getTile(int x, int y){
+        return getTile(x*grid_size + y);
+    }
+
+    private void setTile(int index, int value){
+        if(words == null){
+            int shift = index<<2;
+            packed = (packed & ~(0xFL << shift)) | ((long)value << shift);
+        }
+        else{
+            int w = index/per_word, shift = (index%per_word)*bits;
+            int old = (int)((words[w] >>> shift) & mask);
+            words[w] = (words[w] & ~(mask << shift)) | ((long)value << shift);
+            hash ^= Zobrist.key(index, old) ^ Zobrist.key(index, value);
         }
-        return true;
     }
 
     /**
-     * Replaces the block of matrix at given x & y locations.
+     * Replaces the tile of matrix at given x & y locations.
      * @param value: numeric value of new block.
      */
     public void setPuzzleCell(int x, int y, int value){
-        Block b = new Block(value,x,y);
-        puzzle[x][y] = b;
+        setTile(x*grid_size + y, value);
     }
 
     /**
      * Prints puzzle matrix.
      */
     public void printPuzzle(){
-        String out = "";
+        StringBuilder out = new StringBuilder();
         for(int x=0; x<grid_size; x++){
             for(int y=0; y<grid_size; y++){
-                out+= (puzzle[x][y]==agent) ? "[ # ]" : "[ "+puzzle[x][y].getValue()+" ]";
+                out.append((x*grid_size + y == blank) ? "[ # ]" : "[ "+getTile(x,y)+" ]");
             }
-            out +="\n";
+            out.append("\n");
         }
         System.out.println(out);
     }
@@ -134,75 +394,92 @@ public class State {
      * Updates movable variables.
      */
     public void checkMovable(){
-        movableLeft = (agent.getY()!=0);
-        movableRight = (agent.getY()!=(grid_size-1));
-        movableUp = (agent.getX()!=0);
-        movableDown = (agent.getX()!=(grid_size-1));
+        movableLeft = canMove(LEFT);
+        movableRight = canMove(RIGHT);
+        movableUp = canMove(UP);
+        movableDown = canMove(DOWN);
     }
 
     /**
      * @return Block object on top of agent.
      */
     public Block getUp(){
-        if(movableUp){
-            return puzzle[agent.getX()-1][agent.getY()];
-        }
-        else{
-            return null;
-        }
+        return movableUp ? toBlock(target(UP)) : null;
     }
 
     /**
      * @return Block object on below of agent.
      */
     public Block getDown(){
-        if(movableDown){
-            return puzzle[agent.getX()+1][agent.getY()];
-        }
-        else{
-            return null;
-        }
+        return movableDown ? toBlock(target(DOWN)) : null;
     }
 
     /**
      * @return Block object on left of agent.
      */
     public Block getLeft(){
-        if(movableLeft){
-            return puzzle[agent.getX()][agent.getY()-1];
-        }
-        else{
-            return null;
-        }
+        return movableLeft ? toBlock(target(LEFT)) : null;
     }
 
     /**
      * @return Block object on right of agent.
      */
     public Block getRight(){
-        if(movableRight){
-            return puzzle[agent.getX()][agent.getY()+1];
-        }
-        else{
-            return null;
-        }
+        return movableRight ? toBlock(target(RIGHT)) : null;
+    }
+
+    private Block toBlock(int index){
+        return new Block(getTile(index), index/grid_size, index%grid_size);
     }
 
     /**
-     * Sets agent object manually.
+     * Sets agent position manually.
      * This method should not be used if
      * setPuzzleCell() method won't be called.
      */
     public void setAgent(int x, int y) {
-        agent = puzzle[x][y];
+        blank = x*grid_size + y;
     }
 
+    /**
+     * Converts packed puzzle to a fresh matrix of blocks.
+     * Not meant for search loops.
+     */
     public Block[][] getPuzzle() {
+        Block[][] puzzle = new Block[grid_size][grid_size];
+        for(int i=0; i<grid_size*grid_size; i++){
+            puzzle[i/grid_size][i%grid_size] = toBlock(i);
+        }
         return puzzle;
     }
 
     public Block getAgent() {
-        return agent;
+        return toBlock(blank);
+    }
+
+    public int getBlank() {
+        return blank;
+    }
+
+    /**
+     * @return packed tiles. Only meaningful if grid_size <= 4.
+     */
+    public long getPacked() {
+        return packed;
+    }
+
+    /**
+     * @return packed key for boards up to 4x4, Zobrist hash for larger boards.
+     */
+    public long getHash() {
+        return (words == null) ? packed : hash;
+    }
+
+    /**
+     * @return true if whole puzzle fits in getPacked().
+     */
+    public boolean isPacked() {
+        return words == null;
     }
 
     public int getGrid_size() {
@@ -224,4 +501,16 @@ public class State {
     public boolean isMovableUp() {
         return movableUp;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof State) && ((State) o).grid_size == grid_size && isGoal((State) o);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = (words == null) ? packed : hash;
+        h = h*0x9E3779B97F4A7C15L + blank;
+        return (int)(h ^ (h >>> 32));
+    }
 }
@@ -0,0 +1,287 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+/**
+ * SuccessorGenerator class gives the legal moves of the agent and prunes move sequences
+ * that only lead to states reached by other sequences.
+ * Neighbour cells of every agent cell are computed once per board size.
+ * Pruning is a finite state machine over the moves made so far: next() gives the
+ * machine state after a move, or -1 if the move must not be made.
+ * Default machine only rejects the inverse of the last move.
+ * A learned machine (Taylor and Korf) also rejects short sequences that reach
+ * the same state as a lexicographically smaller sequence of the same or smaller length.
+ * Duplicates are learned on a board large enough to have no borders around the agent,
+ * a sequence is rejected only if its alternative uses no cell the sequence does not use,
+ * so the alternative can be made wherever the sequence can.
+ * @author VedFI
+ */
+public class SuccessorGenerator {
+    private static final HashMap<Long,SuccessorGenerator> LEARNED = new HashMap<>();
+    private static volatile SuccessorGenerator[] shared = new SuccessorGenerator[0];    //by grid size
+    private static final int[][] VECTORS = {{0,-1}, {0,1}, {-1,0}, {1,0}};    //LEFT, RIGHT, UP, DOWN
+
+    private final int grid_size;
+    private final int[] neighbours;     //cell*4 + move -> cell, -1 if on border
+    private final int[] fsm;            //state*4 + move -> state, -1 if pruned
+
+    private SuccessorGenerator(int grid_size, int[] fsm){
+        this.grid_size = grid_size;
+        this.fsm = fsm;
+        int n = grid_size, cells = n*n;
+        neighbours = new int[cells*4];
+        for(int i=0; i<cells; i++){
+            neighbours[i*4 + State.LEFT] = (i%n != 0) ? i-1 : -1;
+            neighbours[i*4 + State.RIGHT] = (i%n != n-1) ? i+1 : -1;
+            neighbours[i*4 + State.UP] = (i >= n) ? i-n : -1;
+            neighbours[i*4 + State.DOWN] = (i < cells-n) ? i+n : -1;
+        }
+    }
+
+    /**
+     * @return shared generator with inverse move pruning.
+     */
+    public static SuccessorGenerator get(int grid_size){
+        SuccessorGenerator[] table = shared;
+        if(grid_size < table.length && table[grid_size] != null){
+            return table[grid_size];
+        }
+        synchronized(SuccessorGenerator.class){
+            table = shared;
+            if(grid_size >= table.length){
+                table = Arrays.copyOf(table, grid_size+1);
+            }
+            if(table[grid_size] == null){
+                int[] fsm = new int[5*4];           //state 0 is start, state m+1 is "last move was m"
+                for(int s=0; s<5; s++){
+                    for(int m=0; m<4; m++){
+                        fsm[s*4 + m] = (s > 0 && m == ((s-1)^1)) ? -1 : m+1;
+                    }
+                }
+                table[grid_size] = new SuccessorGenerator(grid_size, fsm);
+                shared = table;
+            }
+            return table[grid_size];
+        }
+    }
+
+    /**
+     * Learns duplicate sequences up to max_length moves and builds the pruning machine,
+     * machines are shared by board size and length.
+     * Cost grows about 2.4^max_length: 8 takes a fraction of a second (125 states), 10 about a second (1069 states).
+     */
+    public static synchronized SuccessorGenerator learned(int grid_size, int max_length){
+        long key = (long)grid_size << 32 | max_length;
+        SuccessorGenerator gen = LEARNED.get(key);
+        if(gen == null){
+            gen = new SuccessorGenerator(grid_size, buildMachine(learnDuplicates(max_length)));
+            LEARNED.put(key, gen);
+        }
+        return gen;
+    }
+
+    /**
+     * @return cell agent reaches with move, -1 if move leaves the board.
+     */
+    public int target(int blank, int move){
+        return neighbours[blank*4 + move];
+    }
+
+    /**
+     * @return machine state before any move.
+     */
+    public int start(){
+        return 0;
+    }
+
+    /**
+     * @return machine state after move, -1 if move is pruned.
+     */
+    public int next(int state, int move){
+        return fsm[state*4 + move];
+    }
+
+    /**
+     * @return number of machine states.
+     */
+    public int getStates(){
+        return fsm.length/4;
+    }
+
+    public int getGrid_size(){
+        return grid_size;
+    }
+
+    /**
+     * Enumerates move sequences breadth first, lexicographically within a length,
+     * on a board without borders. Tiles are numbered by their starting cell,
+     * so two sequences give the same state when agent cell and moved tiles match.
+     * Sequences containing a pruned sequence are not extended.
+     * @return pruned sequences, inverse move pairs included.
+     */
+    private static ArrayList<int[]> learnDuplicates(int max_length){
+        int size = 2*max_length + 1, center = max_length*size + max_length;
+        ArrayList<int[]> pruned = new ArrayList<>();
+        HashSet<String> pruned_keys = new HashSet<>();
+        for(int m=0; m<4; m++){
+            pruned.add(new int[]{m, m^1});
+            pruned_keys.add(m + "," + (m^1));
+        }
+        HashMap<String,int[]> seen = new HashMap<>();       //state -> first sequence reaching it
+        ArrayList<int[]> level = new ArrayList<>();
+        level.add(new int[0]);
+        seen.put(key(new int[0], size, center), new int[0]);
+        for(int length=1; length<=max_length; length++){
+            ArrayList<int[]> next_level = new ArrayList<>();
+            for(int[] seq: level){
+                for(int m=0; m<4; m++){
+                    int[] s = Arrays.copyOf(seq, length);
+                    s[length-1] = m;
+                    if(hasPrunedSuffix(s, pruned_keys)){
+                        continue;
+                    }
+                    String k = key(s, size, center);
+                    int[] first = seen.get(k);
+                    if(first == null){
+                        seen.put(k, s);
+                        next_level.add(s);
+                    }
+                    else if(cellsOf(s, size, center).equals(union(cellsOf(first, size, center), cellsOf(s, size, center)))){
+                        pruned.add(s);
+                        pruned_keys.add(join(s, 0));
+                    }
+                    else{
+                        next_level.add(s);
+                    }
+                }
+            }
+            level = next_level;
+        }
+        return pruned;
+    }
+
+    private static boolean hasPrunedSuffix(int[] s, HashSet<String> pruned_keys){
+        for(int i=s.length-2; i>=0; i--){
+            if(pruned_keys.contains(join(s, i))){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String join(int[] s, int from){
+        StringBuilder b = new StringBuilder();
+        for(int i=from; i<s.length; i++){
+            if(i > from) b.append(',');
+            b.append(s[i]);
+        }
+        return b.toString();
+    }
+
+    /**
+     * @return agent cell and every moved tile after making s.
+     */
+    private static String key(int[] s, int size, int center){
+        HashMap<Integer,Integer> board = new HashMap<>();       //cell -> tile, only changed cells
+        int blank = center;
+        for(int m: s){
+            int to = blank + VECTORS[m][0]*size + VECTORS[m][1];
+            int t = board.containsKey(to) ? board.get(to) : to;
+            board.put(blank, t);
+            board.put(to, -1);
+            blank = to;
+        }
+        StringBuilder b = new StringBuilder().append(blank);
+        for(int c: new TreeSet<>(board.keySet())){
+            if(board.get(c) != c && c != blank){
+                b.append(' ').append(c).append(':').append(board.get(c));
+            }
+        }
+        return b.toString();
+    }
+
+    private static BitSet cellsOf(int[] s, int size, int center){
+        BitSet cells = new BitSet();
+        int blank = center;
+        cells.set(blank);
+        for(int m: s){
+            blank += VECTORS[m][0]*size + VECTORS[m][1];
+            cells.set(blank);
+        }
+        return cells;
+    }
+
+    private static BitSet union(BitSet a, BitSet b){
+        BitSet u = (BitSet)a.clone();
+        u.or(b);
+        return u;
+    }
+
+    /**
+     * Aho-Corasick automaton of pruned sequences. A state is a longest suffix of the moves made
+     * that is a prefix of some pruned sequence. Moves completing a pruned sequence lead to -1.
+     */
+    private static int[] buildMachine(ArrayList<int[]> pruned){
+        ArrayList<int[]> go = new ArrayList<>();
+        ArrayList<Boolean> end = new ArrayList<>();
+        go.add(new int[]{-1,-1,-1,-1});
+        end.add(false);
+        for(int[] s: pruned){
+            int state = 0;
+            for(int m: s){
+                if(go.get(state)[m] < 0){
+                    go.get(state)[m] = go.size();
+                    go.add(new int[]{-1,-1,-1,-1});
+                    end.add(false);
+                }
+                state = go.get(state)[m];
+            }
+            end.set(state, true);
+        }
+        int states = go.size();
+        int[] fail = new int[states];
+        int[] order = new int[states];
+        int head = 0, tail = 0;
+        for(int m=0; m<4; m++){
+            int c = go.get(0)[m];
+            if(c < 0){
+                go.get(0)[m] = 0;
+            }
+            else{
+                fail[c] = 0;
+                order[tail++] = c;
+            }
+        }
+        while(head < tail){
+            int state = order[head++];
+            end.set(state, end.get(state) || end.get(fail[state]));
+            for(int m=0; m<4; m++){
+                int c = go.get(state)[m];
+                if(c < 0){
+                    go.get(state)[m] = go.get(fail[state])[m];
+                }
+                else{
+                    fail[c] = go.get(fail[state])[m];
+                    order[tail++] = c;
+                }
+            }
+        }
+        //renumber states that are not pruned
+        int[] number = new int[states];
+        int count = 0;
+        for(int s=0; s<states; s++){
+            number[s] = end.get(s) ? -1 : count++;
+        }
+        int[] fsm = new int[count*4];
+        for(int s=0; s<states; s++){
+            if(number[s] < 0) continue;
+            for(int m=0; m<4; m++){
+                fsm[number[s]*4 + m] = number[go.get(s)[m]];
+            }
+        }
+        return fsm;
+    }
+}
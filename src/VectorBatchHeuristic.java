@@ -0,0 +1,78 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorBatchHeuristic class is BatchHeuristic on 128 bit lanes of the Vector API.
+ * A packed state is spread over 16 byte lanes (even cells in lanes 0..7, odd cells in lanes 8..15).
+ * Goal row and column of every tile are looked up for all lanes by one rearrange of a
+ * 16 entry table vector, then distances of all cells are added in one reduction.
+ * Lanes of cells beyond the board hold tile 0 with goal coordinates 0, so they add nothing.
+ * Packed states are split into a scratch array of the instance, so an instance serves one thread.
+ * Needs --add-modules jdk.incubator.vector, use BatchHeuristic.create() to fall back without it.
+ * @author VedFI
+ */
+public class VectorBatchHeuristic implements BatchHeuristic {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_128;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_128;
+    private static final long NIBBLES = 0x0F0F0F0F0F0F0F0FL;
+
+    private final ByteVector row,col;       //goal row and column, by tile
+    private final ByteVector x,y;           //row and column, by lane
+    private final ByteVector goal;          //goal tile, by lane
+    private final long[] pair = new long[2];    //even and odd cells of a packed state, see tiles()
+
+    public VectorBatchHeuristic(int grid_size){
+        int n = grid_size, cells = n*n;
+        byte[] r = new byte[16], c = new byte[16], lx = new byte[16], ly = new byte[16], lg = new byte[16];
+        for(int t=0; t<cells; t++){
+            r[t] = (byte)(t/n);
+            c[t] = (byte)(t%n);
+        }
+        for(int lane=0; lane<16; lane++){
+            int cell = (lane < 8) ? lane*2 : (lane-8)*2 + 1;
+            if(cell < cells){
+                lx[lane] = (byte)(cell/n);
+                ly[lane] = (byte)(cell%n);
+                lg[lane] = (byte)cell;
+            }
+        }
+        row = ByteVector.fromArray(BYTES, r, 0);
+        col = ByteVector.fromArray(BYTES, c, 0);
+        x = ByteVector.fromArray(BYTES, lx, 0);
+        y = ByteVector.fromArray(BYTES, ly, 0);
+        goal = ByteVector.fromArray(BYTES, lg, 0);
+    }
+
+    /**
+     * @return tiles of packed state, one per byte lane.
+     */
+    private ByteVector tiles(long p){
+        pair[0] = p & NIBBLES;
+        pair[1] = (p >>> 4) & NIBBLES;
+        return LongVector.fromArray(LONGS, pair, 0).reinterpretAsBytes();
+    }
+
+    @Override
+    public void h1(long[] states, int count, int[] out){
+        for(int k=0; k<count; k++){
+            ByteVector t = tiles(states[k]);
+            ByteVector dx = row.rearrange(t.toShuffle()).sub(x).abs();
+            ByteVector dy = col.rearrange(t.toShuffle()).sub(y).abs();
+            out[k] = dx.add(dy).reduceLanes(VectorOperators.ADD);
+        }
+    }
+
+    @Override
+    public void h2(long[] states, int count, int[] out){
+        for(int k=0; k<count; k++){
+            out[k] = tiles(states[k]).compare(VectorOperators.NE, goal).trueCount();
+        }
+    }
+
+    @Override
+    public boolean isVectorized(){
+        return true;
+    }
+}
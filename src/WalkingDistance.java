@@ -0,0 +1,178 @@
+import java.util.Arrays;
+
+/**
+ * WalkingDistance class computes walking distance heuristic for boards up to 4x4.
+ * Vertical part ignores columns: state is a matrix counting, for each row,
+ * how many tiles of each goal row it holds. Agent moving up or down carries one tile
+ * between neighbour rows. Exact number of such moves to reach goal matrix is
+ * precomputed by breadth first search. Horizontal part is the same with columns.
+ * Estimate is vertical + horizontal, admissible since every move is either one or the other.
+ * Node keeps (vertical index << 16 | horizontal index), a move only changes one of them
+ * and the new index is a single table lookup.
+ * @author VedFI
+ */
+public class WalkingDistance {
+    private int n,cells;
+    private int[] row,col;
+    private int[] goal_row,goal_col;
+    private Table vertical,horizontal;
+
+    public WalkingDistance(State goal){
+        n = goal.getGrid_size();
+        if(n > 4){
+            throw new IllegalArgumentException("walking distance supports boards up to 4x4");
+        }
+        cells = n*n;
+        row = new int[cells];
+        col = new int[cells];
+        goal_row = new int[cells];
+        goal_col = new int[cells];
+        for(int i=0; i<cells; i++){
+            row[i] = i/n;
+            col[i] = i%n;
+        }
+        for(int i=0; i<cells; i++){
+            int t = goal.getTile(i);
+            goal_row[t] = row[i];
+            goal_col[t] = col[i];
+        }
+        vertical = new Table(n, row[goal.getBlank()]);
+        horizontal = (row[goal.getBlank()] == col[goal.getBlank()]) ?
+                vertical : new Table(n, col[goal.getBlank()]);
+    }
+
+    /**
+     * @return packed table indexes of state.
+     */
+    public int index(State s){
+        long v = 0, h = 0;
+        for(int i=0; i<cells; i++){
+            int t = s.getTile(i);
+            if(t != 0){
+                v += 1L << (3*(row[i]*n + goal_row[t]));
+                h += 1L << (3*(col[i]*n + goal_col[t]));
+            }
+        }
+        return vertical.indexOf(v) << 16 | horizontal.indexOf(h);
+    }
+
+    /**
+     * @return estimate of given packed table indexes.
+     */
+    public int estimate(int index){
+        return vertical.dist[index >>> 16] + horizontal.dist[index & 0xFFFF];
+    }
+
+    /**
+     * Computes child index from parent's.
+     * @param move: move that produced the child.
+     * @param tile: tile that has been moved.
+     */
+    public int update(int index, int move, int tile){
+        switch (move){
+            case State.UP:
+                return vertical.next(index >>> 16, 0, goal_row[tile]) << 16 | (index & 0xFFFF);
+            case State.DOWN:
+                return vertical.next(index >>> 16, 1, goal_row[tile]) << 16 | (index & 0xFFFF);
+            case State.LEFT:
+                return (index & 0xFFFF0000) | horizontal.next(index & 0xFFFF, 0, goal_col[tile]);
+            default:
+                return (index & 0xFFFF0000) | horizontal.next(index & 0xFFFF, 1, goal_col[tile]);
+        }
+    }
+
+    /**
+     * Distances of all count matrices of one axis.
+     * Matrix entry [line][goal line] is stored in 3 bits at 3*(line*n + goal line).
+     */
+    private static class Table {
+        private int n;
+        private LongIntMap index_of = new LongIntMap(1024);
+        private long[] codes = new long[1024];
+        private byte[] dist = new byte[1024];
+        private int[] next;                 //next[(index*2 + dir)*n + goal line]
+        private int size;
+
+        Table(int n, int goal_blank_line){
+            this.n = n;
+            long goal = 0;
+            for(int l=0; l<n; l++){
+                goal += (long)(l == goal_blank_line ? n-1 : n) << (3*(l*n + l));
+            }
+            add(goal, 0);
+            for(int q=0; q<size; q++){              //codes array doubles as bfs queue
+                long code = codes[q];
+                int b = blankLine(code);
+                for(int dir=0; dir<2; dir++){
+                    int from = (dir == 0) ? b-1 : b+1;
+                    if(from < 0 || from >= n) continue;
+                    for(int g=0; g<n; g++){
+                        if(count(code, from, g) > 0){
+                            long c = code - (1L << (3*(from*n + g))) + (1L << (3*(b*n + g)));
+                            if(!index_of.containsKey(c)){
+                                add(c, dist[q] + 1);
+                            }
+                        }
+                    }
+                }
+            }
+            next = new int[size*2*n];
+            for(int q=0; q<size; q++){
+                long code = codes[q];
+                int b = blankLine(code);
+                for(int dir=0; dir<2; dir++){
+                    int from = (dir == 0) ? b-1 : b+1;
+                    for(int g=0; g<n; g++){
+                        int i = -1;
+                        if(from >= 0 && from < n && count(code, from, g) > 0){
+                            i = index_of.get(code - (1L << (3*(from*n + g))) + (1L << (3*(b*n + g))), -1);
+                        }
+                        next[(q*2 + dir)*n + g] = i;
+                    }
+                }
+            }
+            if(size > 0xFFFF){
+                throw new IllegalStateException("walking distance table too large: " + size);
+            }
+        }
+
+        private void add(long code, int d){
+            if(size == codes.length){
+                codes = Arrays.copyOf(codes, size*2);
+                dist = Arrays.copyOf(dist, size*2);
+            }
+            index_of.put(code, size);
+            codes[size] = code;
+            dist[size] = (byte)d;
+            size++;
+        }
+
+        private int count(long code, int line, int goal_line){
+            return (int)((code >>> (3*(line*n + goal_line))) & 7);
+        }
+
+        private int blankLine(long code){
+            for(int l=0; l<n; l++){
+                int sum = 0;
+                for(int g=0; g<n; g++){
+                    sum += count(code, l, g);
+                }
+                if(sum < n){
+                    return l;
+                }
+            }
+            return -1;
+        }
+
+        int indexOf(long code){
+            return index_of.get(code, -1);
+        }
+
+        /**
+         * @param dir: 0 if agent moves to lower line, 1 if to higher line.
+         */
+        int next(int index, int dir, int goal_line){
+            return next[(index*2 + dir)*n + goal_line];
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zobrist class gives 64 bit keys of tile/cell pairs for boards larger than 4x4.
+ * Hash of a state is the XOR of the keys of all its (cell, tile) pairs, so a move
+ * changes it by XOR-ing out two old pairs and XOR-ing in two new ones (see State.setTile()).
+ * Keys come from the SplitMix64 finalizer of (cell, tile) instead of a random table,
+ * so boards of any size need no memory and every run gets the same hashes.
+ * State.isGoal() and State.equals() (so every HashMap lookup of a State) compare hashes first
+ * and full states only on a match, matches and collisions (equal hashes, different states)
+ * are counted here for the whole process. Search reports the counts of one run in SearchStats.
+ * @author VedFI
+ */
+public class Zobrist {
+    private static final LongAdder matches = new LongAdder(), collisions = new LongAdder();
+
+    private Zobrist(){
+    }
+
+    /**
+     * @return key of tile standing on cell.
+     */
+    public static long key(int cell, int tile){
+        long z = ((long)cell << 32 | tile) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30))*0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27))*0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return hash of a board whose cells all hold tile 0.
+     */
+    static long empty(int cells){
+        long h = 0;
+        for(int i=0; i<cells; i++){
+            h ^= key(i, 0);
+        }
+        return h;
+    }
+
+    static void countMatch(boolean equal){
+        matches.increment();
+        if(!equal){
+            collisions.increment();
+        }
+    }
+
+    /**
+     * @return number of full comparisons made because hashes were equal.
+     */
+    public static long getMatches(){
+        return matches.sum();
+    }
+
+    /**
+     * @return number of full comparisons that found different states.
+     */
+    public static long getCollisions(){
+        return collisions.sum();
+    }
+
+    public static void resetStats(){
+        matches.reset();
+        collisions.reset();
+    }
+}
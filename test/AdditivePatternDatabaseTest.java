@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Additive pattern databases on 3x3: admissible against exact distances, same values after
+ * saving and loading, and optimal A* solutions.
+ * @author VedFI
+ */
+class AdditivePatternDatabaseTest {
+    private static final int[][] PARTITION_44 = {{1, 2, 3, 4}, {5, 6, 7, 8}};
+
+    @Test
+    void admissibleOn3x3(){
+        State goal = Puzzles.goal(3);
+        GoalPerimeter exact = Puzzles.exact3();
+        AdditivePatternDatabase pdb = new AdditivePatternDatabase(PatternDatabase.generate(goal, PARTITION_44[0]),
+                PatternDatabase.generate(goal, PARTITION_44[1]));
+        for(State s: Puzzles.solvable(3, 2000, 21)){
+            assertTrue(pdb.estimate(s) <= exact.distance(s.getPacked()));
+            assertEquals(pdb.estimate(s), pdb.estimate(s.getPacked()));
+        }
+        assertEquals(0, pdb.estimate(goal));
+    }
+
+    @Test
+    void savedTablesMatch(@TempDir Path dir) throws IOException {
+        State goal = Puzzles.goal(3);
+        AdditivePatternDatabase built = new AdditivePatternDatabase(PatternDatabase.generate(goal, PARTITION_44[0]),
+                PatternDatabase.generate(goal, PARTITION_44[1]));
+        AdditivePatternDatabase.open(dir, PARTITION_44, goal);
+        AdditivePatternDatabase loaded = AdditivePatternDatabase.open(dir, PARTITION_44, goal);
+        for(State s: Puzzles.solvable(3, 500, 22)){
+            assertEquals(built.estimate(s), loaded.estimate(s));
+        }
+    }
+
+    @Test
+    void aStarOptimal(){
+        State goal = Puzzles.goal(3);
+        AdditivePatternDatabase pdb = new AdditivePatternDatabase(PatternDatabase.generate(goal, PARTITION_44[0]),
+                PatternDatabase.generate(goal, PARTITION_44[1]));
+        Puzzles.optimal3(s -> { s.setDuplicateDetection(1 << 12, 0.5f); s.setPatternDatabase(pdb); return s.AStar(); });
+    }
+}
@@ -0,0 +1,44 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Vector and scalar batch heuristics against Node.h1() and Node.h2() on seeded packed states.
+ * @author VedFI
+ */
+class BatchHeuristicTest {
+
+    @Test
+    void matchesNodeEstimates(){
+        for(int n=2; n<=4; n++){
+            State[] states = Puzzles.solvable(n, 500, 22 + n);
+            long[] packed = new long[states.length + 1];
+            int[] h1 = new int[packed.length], h2 = new int[packed.length];
+            for(int i=0; i<states.length; i++){
+                packed[i] = states[i].getPacked();
+                h1[i] = Node.h1(states[i]);
+                h2[i] = Node.h2(states[i]);
+            }
+            State goal = Puzzles.goal(n);
+            packed[states.length] = goal.getPacked();
+
+            BatchHeuristic vector = new VectorBatchHeuristic(n);
+            assertTrue(BatchHeuristic.create(n).isVectorized());
+            for(BatchHeuristic b: new BatchHeuristic[]{vector, new ScalarBatchHeuristic(n)}){
+                int[] out = new int[packed.length];
+                b.h1(packed, packed.length, out);
+                assertArrayEquals(h1, out, "h1 " + n + "x" + n);
+                b.h2(packed, packed.length, out);
+                assertArrayEquals(h2, out, "h2 " + n + "x" + n);
+
+                //only the first count entries are written
+                out = new int[packed.length];
+                b.h1(packed, 7, out);
+                for(int i=0; i<packed.length; i++){
+                    assertTrue(out[i] == (i < 7 ? h1[i] : 0));
+                }
+            }
+        }
+    }
+}
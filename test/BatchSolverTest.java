@@ -0,0 +1,93 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Ordered output with a reorder window smaller than the input, error lines
+ * for puzzles that can not be parsed or make the solver throw, and failing output.
+ * @author VedFI
+ */
+class BatchSolverTest {
+
+    private static String run(BatchSolver solver, String input) throws IOException, InterruptedException {
+        StringWriter out = new StringWriter();
+        solver.run(new StringReader(input), out);
+        return out.toString();
+    }
+
+    private static String instances(int count){
+        StringBuilder in = new StringBuilder();
+        for(State s: Puzzles.solvable(3, count, 71)){
+            for(int i=0; i<9; i++){
+                in.append(s.getTile(i)).append(i < 8 ? ' ' : '\n');
+            }
+        }
+        return in.toString();
+    }
+
+    @Test
+    void orderedWithSmallWindow() throws IOException, InterruptedException {
+        BatchSolver solver = new BatchSolver();
+        solver.setThreads(3);
+        solver.setQueueSize(2);
+        String[] lines = run(solver, instances(30) + "1 2 3\n").split("\n");
+        assertEquals(31, lines.length);
+        for(int i=0; i<lines.length; i++){
+            assertTrue(lines[i].startsWith(i + ","), lines[i]);
+        }
+        assertTrue(lines[30].startsWith("30,error,"));
+    }
+
+    @Test
+    void solverFailureGivesErrorLine() throws IOException, InterruptedException {
+        BatchSolver solver = new BatchSolver();
+        solver.setThreads(2);
+        solver.setQueueSize(1);
+        solver.setPerimeter(200);           //rejected by GoalPerimeter while solving
+        String[] lines = run(solver, instances(5)).split("\n");
+        assertEquals(5, lines.length);
+        for(int i=0; i<lines.length; i++){
+            assertTrue(lines[i].startsWith(i + ",error,"), lines[i]);
+        }
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void failingOutputStopsRun(){
+        for(boolean ordered: new boolean[]{true, false}){
+            BatchSolver solver = new BatchSolver();
+            solver.setThreads(3);
+            solver.setQueueSize(2);
+            solver.setOrdered(ordered);
+            Writer broken = new Writer(){
+                private int lines;
+
+                @Override
+                public void write(char[] buf, int off, int len) throws IOException {
+                    if(len > 0 && buf[off] == '\n' && ++lines > 3){
+                        throw new IOException("disk full");
+                    }
+                }
+
+                @Override
+                public void flush(){
+                }
+
+                @Override
+                public void close(){
+                }
+            };
+            IOException e = assertThrows(IOException.class,
+                    () -> solver.run(new StringReader(instances(40)), broken));
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Beam search reaches goal on 5x5, also remembering only a few layers,
+ * and gives up on unreachable goals.
+ * @author VedFI
+ */
+class BeamSearchTest {
+
+    @Test
+    void largeBoardReachesGoal(){
+        State goal = Puzzles.goal(5);
+        for(State start: Puzzles.walks(5, 60, 2, 14)){
+            Puzzles.length(Puzzles.search(start, goal).BeamSearch(100), start, goal);
+        }
+    }
+
+    @Test
+    void shortMemoryReachesGoal(){
+        State goal = Puzzles.goal(5);
+        for(State start: Puzzles.walks(5, 60, 2, 15)){
+            BeamSearch beam = new BeamSearch(new Node(start, null, "START"), goal, 100, null);
+            beam.setSeenLayers(4);
+            Puzzles.length(beam.search(), start, goal);
+        }
+    }
+
+    @Test
+    void unsolvableReturnsNull(){
+        State goal = Puzzles.goal(3);
+        State start = StateTest.swapTiles(goal);
+        assertNull(new BeamSearch(new Node(start, null, "START"), goal, 16, null).search());
+    }
+}
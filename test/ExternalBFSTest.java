@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ExternalBFS on 3x3: full histogram, target depths, and resuming from the manifest.
+ * @author VedFI
+ */
+class ExternalBFSTest {
+
+    @Test
+    void histogram(@TempDir Path dir) throws IOException {
+        ExternalBFS bfs = new ExternalBFS(Puzzles.goal(3), dir);
+        bfs.setMemoryStates(1 << 12);
+        long[] histogram = bfs.run();
+        long total = 0;
+        for(long c: histogram){
+            total += c;
+        }
+        assertEquals(181440, total);
+        assertEquals(31, histogram.length-1);
+        assertFalse(Files.exists(dir.resolve("layer-0.bin")));
+    }
+
+    @Test
+    void targetDepth(@TempDir Path dir) throws IOException {
+        State goal = Puzzles.goal(3);
+        GoalPerimeter exact = new GoalPerimeter(goal, 31);
+        State[] starts = Puzzles.solvable(3, 3, 71);
+        for(int i=0; i<starts.length; i++){
+            ExternalBFS bfs = new ExternalBFS(goal, dir.resolve("t" + i));
+            bfs.setTarget(starts[i]);
+            bfs.run();
+            assertEquals(exact.distance(starts[i].getPacked()), bfs.getTarget_depth());
+        }
+        ExternalBFS bfs = new ExternalBFS(goal, dir.resolve("goal"));
+        bfs.setTarget(goal);
+        bfs.run();
+        assertEquals(0, bfs.getTarget_depth());
+    }
+
+    @Test
+    void resume(@TempDir Path dir) throws IOException {
+        State goal = Puzzles.goal(3);
+        GoalPerimeter exact = new GoalPerimeter(goal, 31);
+        State near = Puzzles.walks(3, 4, 1, 72)[0];
+        Path full = dir.resolve("full");
+        new ExternalBFS(goal, full).run();
+
+        //file of a layer marked deleted, as a crash before deleting it would leave
+        Files.write(full.resolve("layer-3.bin"), new byte[8]);
+        ExternalBFS again = new ExternalBFS(goal, full);
+        again.run();
+        assertFalse(Files.exists(full.resolve("layer-3.bin")));
+
+        //shallow layers are gone, a new target may be in one of them
+        ExternalBFS other = new ExternalBFS(goal, full);
+        other.setTarget(near);
+        assertThrows(IOException.class, other::run);
+
+        //target of the stopped run is recorded in the manifest
+        Path kept = dir.resolve("kept");
+        ExternalBFS first = new ExternalBFS(goal, kept);
+        first.setTarget(near);
+        first.run();
+        ExternalBFS second = new ExternalBFS(goal, kept);
+        second.setTarget(near);
+        second.run();
+        assertEquals(exact.distance(near.getPacked()), second.getTarget_depth());
+    }
+}
@@ -0,0 +1,32 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Frontier search: optimal lengths without a closed list, and the full 3x3 depth histogram
+ * with only a few layers stored.
+ * @author VedFI
+ */
+class FrontierSearchTest {
+
+    @Test
+    void optimal(){
+        Puzzles.optimal3(Search::FrontierBFS);
+        Puzzles.optimal3(Search::FrontierAStar);
+        Puzzles.optimal4(Search::FrontierAStar);
+    }
+
+    @Test
+    void histogram(){
+        FrontierSearch fs = new FrontierSearch(3, true);
+        long[] histogram = fs.histogram(Puzzles.goal(3));
+        long total = 0;
+        for(long c: histogram){
+            total += c;
+        }
+        assertEquals(181440, total);
+        assertEquals(31, histogram.length-1);
+        assertTrue(fs.getPeak_stored() < total/2);
+    }
+}
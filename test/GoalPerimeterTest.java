@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Perimeter distances, paths and bounds against exact 3x3 distances,
+ * optimal searches with a perimeter, and the shared tables.
+ * @author VedFI
+ */
+class GoalPerimeterTest {
+
+    @Test
+    void distancesPathsAndBounds(){
+        State goal = Puzzles.goal(3);
+        GoalPerimeter exact = Puzzles.exact3();
+        assertEquals(181440, exact.size());
+        GoalPerimeter p = new GoalPerimeter(goal, 10);
+        for(State s: Puzzles.solvable(3, 2000, 31)){
+            long key = s.getPacked();
+            int d = exact.distance(key);
+            int h = 0;
+            for(int i=0; i<9; i++){
+                int t = s.getTile(i);
+                if(t != 0) h += Math.abs(i/3 - t/3) + Math.abs(i%3 - t%3);
+            }
+            if(d <= 10){
+                assertEquals(d, p.distance(key));
+                int[] moves = p.pathToGoal(key);
+                assertEquals(d, moves.length);
+                State c = s;
+                for(int m: moves){
+                    c = c.slide(m);
+                }
+                assertEquals(goal, c);
+            }
+            else{
+                assertEquals(-1, p.distance(key));
+                assertTrue(p.bound(h) <= d, "bound");
+                assertTrue(p.boundManhattan(h) <= d, "Manhattan bound");
+                assertEquals(d & 1, p.boundManhattan(h) & 1, "parity");
+            }
+        }
+    }
+
+    @Test
+    void searchesStayOptimal(){
+        Puzzles.optimal3(s -> { s.setPerimeter(8); return s.IDAStar(); });
+        Puzzles.optimal3(s -> { s.setPerimeter(8); s.setDuplicateDetection(1 << 12, 0.5f); return s.BFS(); });
+        Puzzles.optimal3(s -> { s.setPerimeter(8); return Puzzles.aStar(s, Search.Heuristic.LINEAR_CONFLICT); });
+        Puzzles.optimal4(s -> { s.setPerimeter(12); return s.IDAStar(); });
+        Puzzles.optimal4(s -> { s.setPerimeter(12); return Puzzles.aStar(s, Search.Heuristic.LINEAR_CONFLICT); });
+    }
+
+    @Test
+    void sharedTable() throws Exception {
+        State goal = Puzzles.goal(4);
+        GoalPerimeter p = GoalPerimeter.get(goal, 6);
+        assertSame(p, GoalPerimeter.get(Puzzles.goal(4), 6));
+        assertEquals(5, GoalPerimeter.get(goal, 5).getDepth());
+        assertSame(p, GoalPerimeter.get(goal, 6));
+
+        //threads asking for one table at once get the same instance
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try{
+            List<Future<GoalPerimeter>> tables = new ArrayList<>();
+            for(int i=0; i<8; i++){
+                tables.add(pool.submit(() -> GoalPerimeter.get(Puzzles.goal(4), 9)));
+            }
+            for(Future<GoalPerimeter> t: tables){
+                assertSame(tables.get(0).get(), t.get());
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * LRTA* agent reaches goal on 5x5 and gives up on unreachable goals.
+ * @author VedFI
+ */
+class LRTAStarTest {
+
+    @Test
+    void largeBoardReachesGoal(){
+        State goal = Puzzles.goal(5);
+        for(State start: Puzzles.walks(5, 60, 2, 14)){
+            Puzzles.length(Puzzles.search(start, goal).LRTAStar(200, 1 << 16), start, goal);
+        }
+    }
+
+    @Test
+    void unsolvableReturnsNull(){
+        State goal = Puzzles.goal(3);
+        State start = StateTest.swapTiles(goal);
+        assertNull(new LRTAStar(new Node(start, null, "START"), goal, 100, 1 << 10).search());
+    }
+}
@@ -0,0 +1,53 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Linear conflict: admissible against exact 3x3 distances, incremental updates equal to
+ * computing from scratch (packed keys too), and optimal A* solutions.
+ * @author VedFI
+ */
+class LinearConflictTest {
+
+    @Test
+    void admissibleOn3x3(){
+        State goal = Puzzles.goal(3);
+        LinearConflict lc = new LinearConflict(goal);
+        for(State s: Puzzles.solvable(3, 2000, 21)){
+            assertTrue(lc.estimate(s) <= Puzzles.exact3().distance(s.getPacked()));
+        }
+        assertEquals(0, lc.estimate(goal));
+    }
+
+    @Test
+    void incrementalMatchesScratch(){
+        for(int n=3; n<=5; n++){
+            LinearConflict lc = new LinearConflict(Puzzles.goal(n));
+            Random random = new Random(n);
+            State s = Puzzles.walks(n, 100, 1, n)[0];
+            int h = lc.estimate(s);
+            for(int k=0; k<2000; k++){
+                int m = random.nextInt(4);
+                if(!s.canMove(m)){
+                    continue;
+                }
+                State c = s.slide(m);
+                if(n <= 4){
+                    assertEquals(lc.estimate(c), lc.estimate(c.getPacked()));
+                    assertEquals(lc.update(s, c, m, h), lc.update(s.getPacked(), c.getPacked(), s.getBlank(), c.getBlank(), h));
+                }
+                h = lc.update(s, c, m, h);
+                assertEquals(lc.estimate(c), h);
+                s = c;
+            }
+        }
+    }
+
+    @Test
+    void aStarOptimal(){
+        Puzzles.optimal3(s -> Puzzles.aStar(s, Search.Heuristic.LINEAR_CONFLICT));
+        Puzzles.optimal4(s -> Puzzles.aStar(s, Search.Heuristic.LINEAR_CONFLICT));
+    }
+}
@@ -0,0 +1,59 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Fork/join IDA* against exact 3x3 distances and plain IDA* on 4x4 and 5x5,
+ * and the same moves as plain IDA* for any number of threads, with and without a perimeter.
+ * @author VedFI
+ */
+class ParallelIDAStarTest {
+
+    @Test
+    void optimal(){
+        Puzzles.optimal3(s -> s.ParallelIDAStar(2));
+        Puzzles.optimal4(s -> s.ParallelIDAStar(2));
+    }
+
+    @Test
+    void largeBoard(){
+        State goal = Puzzles.goal(5);
+        for(State start: Puzzles.walks(5, 60, 2, 14)){
+            int expected = Puzzles.search(start, goal).IDAStar().getDepth();
+            assertEquals(expected, Puzzles.length(Puzzles.search(start, goal).ParallelIDAStar(2), start, goal));
+        }
+    }
+
+    @Test
+    void sameMovesForAnyThreads(){
+        int[] threads = {1, 2, Math.max(3, Runtime.getRuntime().availableProcessors())};
+        long[][] expanded = new long[threads.length][2];     //4x4 per thread count, without and with perimeter
+        State[][] starts = {Puzzles.walks(3, 12, 4, 19), Puzzles.solvable(3, 4, 19), Puzzles.walks(4, 40, 3, 19)};
+        for(State[] set: starts){
+            for(State start: set){
+                State goal = Puzzles.goal(start.getGrid_size());
+                for(int k=0; k<2; k++){
+                    int perimeter = 8*k;
+                    Search plain = Puzzles.search(start, goal);
+                    plain.setPerimeter(perimeter);
+                    int[] expected = plain.IDAStar().getMoves();
+                    for(int i=0; i<threads.length; i++){
+                        Search search = Puzzles.search(start, goal);
+                        search.setPerimeter(perimeter);
+                        Node n = search.ParallelIDAStar(threads[i]);
+                        Puzzles.length(n, start, goal);
+                        assertArrayEquals(expected, n.getMoves(), threads[i] + " threads, perimeter " + perimeter);
+                        if(start.getGrid_size() == 4){      //3x3 work is mostly the split into subtrees
+                            expanded[i][k] += search.getStats().getExpanded();
+                        }
+                    }
+                }
+            }
+        }
+        for(long[] e: expanded){
+            assertTrue(e[1] < e[0], "perimeter ignored");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Puzzles class holds seeded instances and path checks shared by the tests.
+ * @author VedFI
+ */
+final class Puzzles {
+    private static GoalPerimeter exact3;
+
+    private Puzzles(){
+    }
+
+    static State goal(int grid_size){
+        State goal = new State(grid_size);
+        goal.generateGoalState();
+        return goal;
+    }
+
+    /**
+     * @return count uniformly random solvable states.
+     */
+    static State[] solvable(int grid_size, int count, long seed){
+        Random random = new Random(seed);
+        State[] states = new State[count];
+        for(int i=0; i<count; i++){
+            states[i] = new State(grid_size);
+            states[i].generateSolvableState(random);
+        }
+        return states;
+    }
+
+    /**
+     * @return count states reached by random walks of length moves from goal.
+     */
+    static State[] walks(int grid_size, int length, int count, long seed){
+        Random random = new Random(seed);
+        State[] states = new State[count];
+        for(int i=0; i<count; i++){
+            states[i] = new State(grid_size);
+            states[i].generateRandomWalk(length, random);
+        }
+        return states;
+    }
+
+    /**
+     * @return exact distance of every 3x3 state to goal (all are within 31 moves), built once.
+     */
+    static synchronized GoalPerimeter exact3(){
+        if(exact3 == null){
+            exact3 = new GoalPerimeter(goal(3), 31);
+        }
+        return exact3;
+    }
+
+    /**
+     * Runs engine on seeded 3x3 instances and compares its lengths with exact distances.
+     */
+    static void optimal3(Function<Search,Node> engine){
+        State goal = goal(3);
+        for(State start: solvable(3, 8, 11)){
+            int length = length(engine.apply(search(start, goal)), start, goal);
+            assertEquals(exact3().distance(start.getPacked()), length);
+        }
+    }
+
+    /**
+     * Runs engine on seeded 4x4 instances and compares its lengths with plain IDA*.
+     */
+    static void optimal4(Function<Search,Node> engine){
+        State goal = goal(4);
+        for(State start: walks(4, 40, 4, 12)){
+            int expected = search(start, goal).IDAStar().getDepth();
+            assertEquals(expected, length(engine.apply(search(start, goal)), start, goal));
+        }
+    }
+
+    /**
+     * A* with duplicate detection and heuristic h.
+     */
+    static Node aStar(Search s, Search.Heuristic h){
+        s.setDuplicateDetection(1 << 12, 0.5f);
+        s.setHeuristic(h);
+        return s.AStar();
+    }
+
+    static Search search(State start, State goal){
+        Search search = new Search(new Node(start, null, "START"), goal);
+        search.setVerbose(false);
+        return search;
+    }
+
+    /**
+     * Checks that n is a path from start that ends on goal and returns its length.
+     */
+    static int length(Node n, State start, State goal){
+        assertNotNull(n, "no solution");
+        State s = new State(start);
+        int[] moves = n.getMoves();
+        for(int m: moves){
+            assertTrue(s.canMove(m), "illegal move");
+            s = s.slide(m);
+        }
+        assertEquals(goal, s, "path does not end on goal");
+        assertEquals(moves.length, n.getDepth());
+        return moves.length;
+    }
+}
@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Solution lengths of the optimal engines against exact distances on seeded instances:
+ * every 3x3 distance comes from a full GoalPerimeter table, 4x4 instances are checked against plain IDA*.
+ * @author VedFI
+ */
+class SearchTest {
+    private static State goal3;
+    private static GoalPerimeter exact3;
+
+    @BeforeAll
+    static void tables(){
+        goal3 = Puzzles.goal(3);
+        exact3 = Puzzles.exact3();
+    }
+
+    @Test
+    void idaStar(){
+        Puzzles.optimal3(Search::IDAStar);
+    }
+
+    @Test
+    void breadthFirst(){
+        Puzzles.optimal3(s -> { s.setDuplicateDetection(1 << 12, 0.5f); return s.BFS(); });
+        Puzzles.optimal3(Search::BidirectionalBFS);
+    }
+
+    @Test
+    void otherHeuristicSearches(){
+        Puzzles.optimal3(s -> s.HDAStar(2));
+        Puzzles.optimal4(s -> s.HDAStar(3));
+        Puzzles.optimal3(Search::MM);
+        Puzzles.optimal3(s -> { s.setHeuristic(Search.Heuristic.LINEAR_CONFLICT); return s.SMAStar(1 << 16); });
+    }
+
+    @Test
+    void weightedAStarWithinBound(){
+        for(State start: Puzzles.solvable(3, 8, 13)){
+            Search search = Puzzles.search(start, goal3);
+            search.setHeuristic(Search.Heuristic.LINEAR_CONFLICT);
+            int length = Puzzles.length(search.WeightedAStar(2.0), start, goal3);
+            double bound = search.getStats().getSuboptimalityBound();
+            assertTrue(bound >= 1 && bound <= 2);
+            assertTrue(length <= bound*exact3.distance(start.getPacked()));
+
+            //H1 may overestimate, no bound holds
+            Search plain = Puzzles.search(start, goal3);
+            Puzzles.length(plain.ARAStar(3.0, 1.0), start, goal3);
+            assertTrue(Double.isNaN(plain.getStats().getSuboptimalityBound()));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * SolutionCache round trips: memory tier, disk tier after reopening, and the transpose symmetry.
+ * @author VedFI
+ */
+class SolutionCacheTest {
+
+    /**
+     * @return s mirrored on the main diagonal with tiles renamed so the standard goal maps onto itself.
+     */
+    private static State transpose(State s){
+        int n = s.getGrid_size();
+        State t = new State(n);
+        for(int x=0; x<n; x++){
+            for(int y=0; y<n; y++){
+                int tile = s.getTile(x*n + y);
+                t.setPuzzleCell(y, x, (tile%n)*n + tile/n);
+                if(tile == 0){
+                    t.setAgent(y, x);
+                }
+            }
+        }
+        return t;
+    }
+
+    @Test
+    void memoryAndTranspose() throws IOException {
+        State goal = Puzzles.goal(4);
+        SolutionCache cache = new SolutionCache(16, null);
+        for(State start: Puzzles.walks(4, 30, 5, 61)){
+            int[] moves = Puzzles.search(start, goal).IDAStar().getMoves();
+            assertNull(cache.get(start, goal));
+            cache.put(start, goal, moves);
+            assertArrayEquals(moves, cache.get(start, goal));
+            State mirror = transpose(start);
+            int[] mirrored = cache.get(mirror, goal);
+            assertNotNull(mirrored);
+            assertEquals(moves.length, Puzzles.length(path(mirror, mirrored), mirror, goal));
+        }
+    }
+
+    @Test
+    void diskTier(@TempDir Path dir) throws IOException {
+        State goal = Puzzles.goal(3);
+        State[] starts = Puzzles.solvable(3, 10, 62);
+        int[][] paths = new int[starts.length][];
+        Path file = dir.resolve("solutions.bin");
+        SolutionCache cache = new SolutionCache(2, file);
+        for(int i=0; i<starts.length; i++){
+            paths[i] = Puzzles.search(starts[i], goal).IDAStar().getMoves();
+            cache.put(starts[i], goal, paths[i]);
+        }
+        cache.close();
+        cache = new SolutionCache(2, file);
+        assertEquals(starts.length, cache.size());
+        for(int i=0; i<starts.length; i++){
+            assertArrayEquals(paths[i], cache.get(starts[i], goal));
+        }
+        assertEquals(starts.length, cache.getDisk_hits());
+        cache.close();
+    }
+
+    @Test
+    void leastRecentlyUsedEvicted(@TempDir Path dir) throws IOException {
+        State goal = Puzzles.goal(3);
+        State[] starts = Puzzles.solvable(3, 3, 64);
+        int[][] paths = new int[starts.length][];
+        for(int i=0; i<starts.length; i++){
+            paths[i] = Puzzles.search(starts[i], goal).IDAStar().getMoves();
+        }
+        SolutionCache memory = new SolutionCache(2, null);
+        SolutionCache tiers = new SolutionCache(2, dir.resolve("solutions.bin"));
+        for(SolutionCache cache: new SolutionCache[]{memory, tiers}){
+            cache.put(starts[0], goal, paths[0]);
+            cache.put(starts[1], goal, paths[1]);
+            assertArrayEquals(paths[0], cache.get(starts[0], goal));     //0 is now most recent
+            cache.put(starts[2], goal, paths[2]);
+            assertArrayEquals(paths[0], cache.get(starts[0], goal));
+            assertArrayEquals(paths[2], cache.get(starts[2], goal));
+        }
+        assertNull(memory.get(starts[1], goal));
+        assertArrayEquals(paths[1], tiers.get(starts[1], goal));
+        assertEquals(1, tiers.getDisk_hits());
+        tiers.close();
+    }
+
+    @Test
+    void onlyOptimalStored() throws IOException {
+        State goal = Puzzles.goal(4);
+        SolutionCache cache = new SolutionCache(64, null);
+        State[] starts = Puzzles.walks(4, 30, 3, 63);
+        Search.Heuristic[] heuristics = {Search.Heuristic.H1, Search.Heuristic.H2, Search.Heuristic.LINEAR_CONFLICT};
+        for(Search.Heuristic h: heuristics){
+            for(int batch: new int[]{1, 64}){
+                for(State start: starts){
+                    Search s = Puzzles.search(start, goal);
+                    s.setHeuristic(h);
+                    s.setBatchSize(batch);
+                    s.setSolutionCache(cache);
+                    assertNotNull(s.AStar());
+                }
+            }
+            //h1() and h2() count the agent and may overestimate
+            assertEquals(h == Search.Heuristic.LINEAR_CONFLICT ? starts.length : 0, cache.size());
+        }
+        for(State start: starts){
+            int optimal = Puzzles.search(start, goal).IDAStar().getDepth();
+            Search s = Puzzles.search(start, goal);
+            s.setSolutionCache(cache);
+            assertEquals(optimal, Puzzles.length(s.IDAStar(), start, goal));
+        }
+    }
+
+    /**
+     * @return Node chain of moves from start.
+     */
+    static Node path(State start, int[] moves){
+        Node n = new Node(start, null, "START");
+        for(int m: moves){
+            n = n.slide(m);
+        }
+        return n;
+    }
+}
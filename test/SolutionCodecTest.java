@@ -0,0 +1,123 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Write/read round trips of SolutionCodec on packed and wide boards,
+ * and the Node path walks that feed it.
+ * @author VedFI
+ */
+class SolutionCodecTest {
+
+    /**
+     * @return random legal moves from start, inverse of the previous move never taken.
+     */
+    private static int[] randomPath(State start, int length, Random random){
+        int[] moves = new int[length];
+        State s = new State(start);
+        int prev = -1;
+        for(int i=0; i<length; ){
+            int m = random.nextInt(4);
+            if(m != (prev^1) && s.canMove(m)){
+                s.slideInPlace(m);
+                moves[i++] = prev = m;
+            }
+        }
+        return moves;
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        Random random = new Random(51);
+        int[] sizes = {3, 4, 5, 17};
+        State[] starts = new State[40];
+        int[][] paths = new int[40][];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(SolutionCodec.Writer out = new SolutionCodec.Writer(bytes)){
+            for(int i=0; i<starts.length; i++){
+                starts[i] = Puzzles.walks(sizes[i%4], 50, 1, i)[0];
+                paths[i] = randomPath(starts[i], random.nextInt(200), random);
+                out.write(starts[i], paths[i], paths[i].length);
+            }
+            assertEquals(starts.length, out.getRecords());
+        }
+        try(SolutionCodec.Reader in = new SolutionCodec.Reader(new ByteArrayInputStream(bytes.toByteArray()))){
+            for(int i=0; i<starts.length; i++){
+                assertTrue(in.next());
+                assertEquals(starts[i], in.getStart());
+                int[] moves = new int[in.getLength()];
+                for(int k=0; k<moves.length; k++){
+                    moves[k] = in.getMove(k);
+                }
+                assertArrayEquals(paths[i], moves);
+            }
+            assertFalse(in.next());
+        }
+    }
+
+    @Test
+    void nodeAndText() throws IOException {
+        State goal = Puzzles.goal(3);
+        State start = Puzzles.walks(3, 20, 1, 52)[0];
+        Node n = Puzzles.search(start, goal).IDAStar();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(SolutionCodec.Writer out = new SolutionCodec.Writer(bytes)){
+            out.write(n);
+        }
+        try(SolutionCodec.Reader in = new SolutionCodec.Reader(new ByteArrayInputStream(bytes.toByteArray()))){
+            assertTrue(in.next());
+            StringBuilder text = new StringBuilder();
+            in.appendText(text);
+            StringBuilder expected = new StringBuilder();
+            for(int m: n.getMoves()){
+                expected.append(State.ACTIONS[m]).append("-> ");
+            }
+            assertEquals(expected.append("GOAL").toString(), text.toString());
+        }
+    }
+
+    @Test
+    void pathAndMoves(){
+        State start = Puzzles.walks(5, 40, 1, 54)[0];
+        int[] moves = randomPath(start, 300, new Random(54));
+        Node root = new Node(start, null, "START"), n = root;
+        for(int m: moves){
+            n = n.slide(m);
+        }
+        assertArrayEquals(moves, n.getMoves());
+        ArrayList<Node> path = n.getPath();
+        assertEquals(moves.length + 1, path.size());
+        assertSame(root, path.get(0));
+        assertSame(n, path.get(moves.length));
+        for(int i=0; i<moves.length; i++){
+            assertSame(path.get(i), path.get(i+1).getParent());
+            assertEquals(moves[i], path.get(i+1).getMove());
+        }
+        assertEquals(0, root.getMoves().length);
+    }
+
+    @Test
+    void truncatedStream() throws IOException {
+        State start = Puzzles.walks(4, 30, 1, 53)[0];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(SolutionCodec.Writer out = new SolutionCodec.Writer(bytes)){
+            out.write(start, new int[]{0, 2, 1, 3, 0}, 5);
+        }
+        byte[] cut = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+        try(SolutionCodec.Reader in = new SolutionCodec.Reader(new ByteArrayInputStream(cut))){
+            assertThrows(EOFException.class, in::next);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Solvability: generated instances reach goal, canReach() agrees with exact 3x3 distances,
+ * and searches give up on unreachable goals.
+ * @author VedFI
+ */
+class StateTest {
+
+    /**
+     * @return copy of s with the tiles of two cells swapped, neither cell holding the agent.
+     */
+    static State swapTiles(State s){
+        int n = s.getGrid_size();
+        int a = (s.getBlank() == 0) ? 1 : 0;
+        int b = (s.getBlank() == a+1) ? a+2 : a+1;
+        State t = new State(s);
+        int ta = s.getTile(a), tb = s.getTile(b);
+        t.setPuzzleCell(a/n, a%n, tb);
+        t.setPuzzleCell(b/n, b%n, ta);
+        return t;
+    }
+
+    @Test
+    void generatedInstancesReachGoal(){
+        for(int n=2; n<=7; n++){
+            State goal = Puzzles.goal(n);
+            for(State s: Puzzles.solvable(n, 20, n)){
+                assertTrue(s.canReach(goal));
+                assertFalse(swapTiles(s).canReach(goal));
+            }
+            for(State s: Puzzles.walks(n, 50, 20, n)){
+                assertTrue(s.canReach(goal));
+            }
+        }
+    }
+
+    @Test
+    void canReachMatchesExactDistances(){
+        State goal = Puzzles.goal(3);
+        GoalPerimeter exact = Puzzles.exact3();
+        for(State s: Puzzles.solvable(3, 500, 31)){
+            State t = swapTiles(s);
+            assertEquals(exact.distance(s.getPacked()) >= 0, s.canReach(goal));
+            assertEquals(exact.distance(t.getPacked()) >= 0, t.canReach(goal));
+        }
+    }
+
+    @Test
+    void unsolvableReturnsNull(){
+        State goal = Puzzles.goal(3);
+        State start = swapTiles(goal);
+        Search search = Puzzles.search(start, goal);
+        assertFalse(search.isSolvable());
+        assertNull(search.IDAStar());
+        assertNull(search.AStar());
+        assertNull(search.BFS());
+    }
+}
@@ -0,0 +1,65 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Move tables agree with State moves, and learned move pruning must keep a shortest sequence
+ * to every state: depth first enumeration through the machine reaches exactly the states a
+ * breadth first search finds, each at its breadth first depth.
+ * @author VedFI
+ */
+class SuccessorGeneratorTest {
+
+    @Test
+    void moveTablesMatchState(){
+        for(int n=2; n<=6; n++){
+            SuccessorGenerator gen = SuccessorGenerator.get(n);
+            for(State s: Puzzles.walks(n, 30, 20, 40 + n)){
+                for(int m=0; m<4; m++){
+                    int to = gen.target(s.getBlank(), m);
+                    assertEquals(s.canMove(m), to >= 0);
+                    if(to >= 0){
+                        assertEquals(to, s.slide(m).getBlank());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void learnedMachineKeepsShortestPaths(){
+        int length = 8;
+        SuccessorGenerator gen = SuccessorGenerator.learned(4, length);
+        for(State start: Puzzles.walks(4, 30, 3, 41)){
+            GoalPerimeter ball = new GoalPerimeter(start, length);
+            HashMap<Long,Integer> reached = new HashMap<>();
+            enumerate(gen, start.getPacked(), start.getBlank(), gen.start(), 0, length, reached);
+            assertEquals(ball.size(), reached.size());
+            for(java.util.Map.Entry<Long,Integer> e: reached.entrySet()){
+                assertEquals(ball.distance(e.getKey()), (int)e.getValue());
+            }
+        }
+    }
+
+    @Test
+    void idaStarWithMovePruning(){
+        Puzzles.optimal3(s -> { s.setMovePruning(8); return s.IDAStar(); });
+        Puzzles.optimal4(s -> { s.setMovePruning(8); return s.IDAStar(); });
+    }
+
+    private static void enumerate(SuccessorGenerator gen, long key, int blank, int state, int depth, int limit,
+                                  HashMap<Long,Integer> reached){
+        reached.merge(key, depth, Math::min);
+        if(depth == limit){
+            return;
+        }
+        for(int m=0; m<4; m++){
+            int to = gen.target(blank, m);
+            int next = (to < 0) ? -1 : gen.next(state, m);
+            if(next >= 0){
+                enumerate(gen, State.slidePacked(key, blank, to), to, next, depth+1, limit, reached);
+            }
+        }
+    }
+}
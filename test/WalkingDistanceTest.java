@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Walking distance: admissible against exact 3x3 distances, incremental index updates equal to
+ * indexing from scratch, and optimal A* solutions.
+ * @author VedFI
+ */
+class WalkingDistanceTest {
+
+    @Test
+    void admissibleOn3x3(){
+        State goal = Puzzles.goal(3);
+        WalkingDistance wd = new WalkingDistance(goal);
+        for(State s: Puzzles.solvable(3, 2000, 21)){
+            assertTrue(wd.estimate(wd.index(s)) <= Puzzles.exact3().distance(s.getPacked()));
+        }
+        assertEquals(0, wd.estimate(wd.index(goal)));
+    }
+
+    @Test
+    void incrementalMatchesScratch(){
+        for(int n=3; n<=4; n++){            //tables up to 4x4
+            WalkingDistance wd = new WalkingDistance(Puzzles.goal(n));
+            Random random = new Random(n);
+            State s = Puzzles.walks(n, 100, 1, n)[0];
+            int index = wd.index(s);
+            for(int k=0; k<2000; k++){
+                int m = random.nextInt(4);
+                if(!s.canMove(m)){
+                    continue;
+                }
+                State c = s.slide(m);
+                index = wd.update(index, m, c.getTile(s.getBlank()));
+                assertEquals(wd.index(c), index);
+                s = c;
+            }
+        }
+    }
+
+    @Test
+    void aStarOptimal(){
+        Puzzles.optimal3(s -> Puzzles.aStar(s, Search.Heuristic.WALKING_DISTANCE));
+        Puzzles.optimal4(s -> Puzzles.aStar(s, Search.Heuristic.WALKING_DISTANCE));
+    }
+}
@@ -0,0 +1,54 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Incremental Zobrist hashes against hashes of freshly built states,
+ * and match counting of HashMap lookups on boards larger than 4x4.
+ * @author VedFI
+ */
+class ZobristTest {
+
+    @Test
+    void incrementalMatchesFresh(){
+        for(int n: new int[]{5, 6, 17}){
+            for(State s: Puzzles.walks(n, 300, 5, n)){
+                Block[][] blocks = new Block[n][n];
+                long expected = 0;
+                for(int i=0; i<n*n; i++){
+                    blocks[i/n][i%n] = new Block(s.getTile(i), i/n, i%n);
+                    expected ^= Zobrist.key(i, s.getTile(i));
+                }
+                State fresh = new State(blocks);
+                assertEquals(expected, s.getHash(), n + "x" + n);
+                assertEquals(expected, fresh.getHash());
+                assertEquals(fresh, s);
+                assertEquals(fresh.hashCode(), s.hashCode());
+                assertNotEquals(s.getHash(), StateTest.swapTiles(s).getHash());
+            }
+        }
+    }
+
+    @Test
+    void lookupsCounted(){
+        State[] states = Puzzles.walks(5, 40, 10, 23);
+        HashMap<State,Integer> map = new HashMap<>();
+        for(int i=0; i<states.length; i++){
+            map.put(new State(states[i]), i);
+        }
+        long matches = Zobrist.getMatches(), collisions = Zobrist.getCollisions();
+        for(int i=0; i<states.length; i++){
+            assertEquals(i, map.get(states[i]));
+        }
+        assertTrue(Zobrist.getMatches() - matches >= states.length);
+        assertEquals(collisions, Zobrist.getCollisions());
+
+        Search search = Puzzles.search(states[0], Puzzles.goal(5));
+        Puzzles.aStar(search, Search.Heuristic.LINEAR_CONFLICT);
+        assertTrue(search.getStats().getHashMatches() > 0);
+        assertEquals(0, search.getStats().getHashCollisions());
+    }
+}